@@ -0,0 +1,145 @@
+/**
+ * The MancalaBenchmarkFixture class does the work of the JMH benchmarks in
+ * mancala.jmh.MancalaBenchmark. It is in the default package so it can use the
+ * game's classes, and the benchmarks reach it through the mancala.jmh.Fixture
+ * interface. Each instance holds its own models, positions and view, so every
+ * benchmark thread works on separate state.
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaBenchmarkFixture.java
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import mancala.jmh.Fixture;
+
+public class MancalaBenchmarkFixture implements Fixture {
+    private static final int POSITIONS = 1024;
+
+    // mid-game positions reached by random play, cycled through by moveGeneration and queries
+    private final MancalaModel model = new MancalaModel();
+    private final int[][] boards = new int[POSITIONS][];
+    private final boolean[] turns = new boolean[POSITIONS];
+    private int next;
+
+    private final MancalaModel makeModel = new MancalaModel();
+    private int makeStep;
+    private final MancalaModel playoutModel = new MancalaModel();
+    private final Random playoutRandom = new Random(11);
+    private int playouts;
+    private final MancalaModel undoModel = new MancalaModel();
+
+    private final MancalaView view;
+    private final BufferedImage image;
+
+    /**
+     * Constructs the fixture.
+     * style the board style to render with, "classic" or "ocean"
+     */
+    public MancalaBenchmarkFixture(String style) {
+        randomPositions(model, boards, turns, new Random(7));
+        makeModel.loadPosition(boards[0], turns[0]);
+        undoModel.newGame(4);
+
+        MancalaModel renderModel = new MancalaModel();
+        renderModel.newGame(4);
+        renderModel.move(2);
+        view = new MancalaView(renderModel, style.equals("ocean") ? new OceanStyle() : new ClassicStyle());
+        view.setSize(view.getPreferredSize());
+        image = new BufferedImage(view.getWidth(), view.getHeight(), BufferedImage.TYPE_INT_ARGB);
+    }
+
+    public long moveGeneration() {
+        int s = next++ & (POSITIONS - 1);
+        model.loadPosition(boards[s], turns[s]);
+        long sum = 0;
+        for (int pit = 0; pit < 14; pit++) {
+            if (model.isLegalPick(pit)) {
+                long token = model.makeMove(pit);
+                sum += model.getHash();
+                model.unmakeMove(token);
+            }
+        }
+        return sum;
+    }
+
+    public long makeUnmake() {
+        int pit = (turns[0] ? 0 : 7) + makeStep++ % 6;
+        if (makeModel.getBoard()[pit] == 0) {
+            return 0;
+        }
+        long token = makeModel.makeMove(pit);
+        makeModel.unmakeMove(token);
+        return token;
+    }
+
+    public int randomPlayout() {
+        playoutModel.newGame(playouts++ % 2 == 0 ? 3 : 4);
+        return playout(playoutModel, playoutRandom);
+    }
+
+    public int moveUndo() {
+        undoModel.move(2);
+        if (!undoModel.undo()) {
+            // out of undos for this turn; start over
+            undoModel.newGame(4);
+        }
+        return undoModel.getUndoCount();
+    }
+
+    public int queries() {
+        int s = next++ & (POSITIONS - 1);
+        if ((s & 63) == 0) {
+            model.loadPosition(boards[s], turns[s]);
+        }
+        return (model.isGameOver() ? 1 : 0) + (model.isLegalPick(s % 14) ? 2 : 0);
+    }
+
+    public int render() {
+        Graphics2D g = image.createGraphics();
+        view.paint(g);
+        g.dispose();
+        return image.getRGB(view.getWidth() / 2, view.getHeight() / 2);
+    }
+
+    /**
+     * Plays random legal moves to the end of the game.
+     * return the number of plies played
+     */
+    static int playout(MancalaModel model, Random random) {
+        int plies = 0;
+        int[] b = model.getBoard();
+        while (!model.isGameOver()) {
+            int first = model.isPlayer1Turn() ? 0 : 7;
+            int pit;
+            do {
+                pit = first + random.nextInt(6);
+            } while (b[pit] == 0);
+            model.makeMove(pit);
+            plies++;
+        }
+        return plies;
+    }
+
+    private static void randomPositions(MancalaModel model, int[][] boards, boolean[] turns, Random random) {
+        int filled = 0;
+        while (filled < boards.length) {
+            model.newGame(filled % 2 == 0 ? 3 : 4);
+            int plies = random.nextInt(30);
+            int[] b = model.getBoard();
+            for (int p = 0; p < plies && !model.isGameOver(); p++) {
+                int first = model.isPlayer1Turn() ? 0 : 7;
+                int pit;
+                do {
+                    pit = first + random.nextInt(6);
+                } while (b[pit] == 0);
+                model.makeMove(pit);
+            }
+            if (!model.isGameOver()) {
+                boards[filled] = b.clone();
+                turns[filled] = model.isPlayer1Turn();
+                filled++;
+            }
+        }
+    }
+}
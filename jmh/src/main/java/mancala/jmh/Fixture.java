@@ -0,0 +1,58 @@
+/**
+ * The Fixture interface is what the JMH benchmarks call to exercise the game.
+ * JMH needs benchmark classes in a named package, and a named package cannot
+ * refer to the game's classes in the default package, so the work itself lives
+ * in MancalaBenchmarkFixture (default package) behind this interface. Each
+ * method does one operation and returns a value derived from it for JMH to sink.
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// Fixture.java
+package mancala.jmh;
+
+public interface Fixture {
+    /**
+     * Loads the next mid-game position and makes and unmakes every legal pick.
+     */
+    long moveGeneration();
+
+    /**
+     * One headless makeMove/unmakeMove pair on a fixed position.
+     */
+    long makeUnmake();
+
+    /**
+     * One game of random legal moves from the start.
+     * return the plies played
+     */
+    int randomPlayout();
+
+    /**
+     * One move and undo through the Swing-facing path, with listener notification.
+     */
+    int moveUndo();
+
+    /**
+     * isGameOver and isLegalPick on the current position, reloaded every 64 calls.
+     */
+    int queries();
+
+    /**
+     * One full paint of the board into an off-screen image.
+     * return a pixel of the image
+     */
+    int render();
+
+    /**
+     * Creates the fixture.
+     * style the board style to render with, "classic" or "ocean"
+     */
+    static Fixture create(String style) {
+        try {
+            return (Fixture) Class.forName("MancalaBenchmarkFixture")
+                    .getDeclaredConstructor(String.class).newInstance(style);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("cannot create the benchmark fixture", e);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * The MancalaBenchmark class holds the JMH benchmarks for the rules engine and
+ * the renderer. Each benchmark method does one operation through a Fixture and
+ * returns its result, so JMH sinks it and the JIT cannot drop the work; every
+ * benchmark runs in forked JVMs with JMH's warmup and measurement iterations.
+ *
+ * Benchmarks: move generation, headless make/unmake, full random playouts,
+ * the Swing move/undo path, isGameOver/isLegalPick, and off-screen rendering of
+ * MancalaView into a BufferedImage for each board style.
+ * Usage: java -jar jmh/target/benchmarks.jar [regex] [JMH options, e.g. -rf json -rff file]
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaBenchmark.java
+package mancala.jmh;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+public class MancalaBenchmark {
+
+    /**
+     * The rules-engine fixture, one per benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Engine {
+        Fixture fixture;
+
+        @Setup
+        public void setUp() {
+            fixture = Fixture.create("classic");
+        }
+    }
+
+    /**
+     * The rendering fixture, once per board style.
+     */
+    @State(Scope.Thread)
+    public static class Render {
+        @Param({"classic", "ocean"})
+        public String style;
+
+        Fixture fixture;
+
+        @Setup
+        public void setUp() {
+            fixture = Fixture.create(style);
+        }
+    }
+
+    @Benchmark
+    public long moveGeneration(Engine e) {
+        return e.fixture.moveGeneration();
+    }
+
+    @Benchmark
+    public long makeUnmake(Engine e) {
+        return e.fixture.makeUnmake();
+    }
+
+    /**
+     * The score unit is games.
+     */
+    @Benchmark
+    public int randomPlayout(Engine e) {
+        return e.fixture.randomPlayout();
+    }
+
+    @Benchmark
+    public int moveUndo(Engine e) {
+        return e.fixture.moveUndo();
+    }
+
+    @Benchmark
+    public int isGameOver(Engine e) {
+        return e.fixture.queries();
+    }
+
+    /**
+     * The score unit is frames.
+     */
+    @Benchmark
+    public int render(Render r) {
+        return r.fixture.render();
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * The MancalaAnalysisPanel class shows the analysis of the current position next
+ * to the MancalaView: an evaluation bar (Player 1's share grows from the bottom,
+ * where the A pits are) and the best move, score, depth and search speed.
+ * It only displays what MancalaAnalysisService gives it, on the EDT.
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaAnalysisPanel.java
+import javax.swing.*;
+import java.awt.*;
+
+public class MancalaAnalysisPanel extends JPanel {
+    private static final int PAD = 12;
+    private static final int BAR_W = 18;
+    private static final int LINE_H = 20;
+    // scores beyond this many stones fill the bar completely
+    private static final int BAR_RANGE = 24;
+    private static final Color P1_COLOR = new Color(245, 245, 245);
+    private static final Color P2_COLOR = new Color(50, 50, 50);
+    private static final Font FONT = new Font("SansSerif", Font.PLAIN, 13);
+    private static final Font TITLE_FONT = new Font("SansSerif", Font.BOLD, 14);
+
+    private boolean player1Turn = true;
+    private int scoreForPlayer1; // stones, from Player 1's point of view
+    private boolean hasScore;
+    private String status = "";
+    private String bestMove = "";
+    private String eval = "";
+    private String depth = "";
+    private String speed = "";
+
+    /**
+     * Constructs an empty analysis panel.
+     */
+    public MancalaAnalysisPanel() {
+        setPreferredSize(new Dimension(190, 260));
+        setBackground(new Color(236, 236, 236));
+    }
+
+    /**
+     * Shows that analysis is turned off.
+     */
+    public void showDisabled() {
+        clear("Hints off");
+    }
+
+    /**
+     * Shows that the game is over and there is nothing to analyse.
+     */
+    public void showGameOver() {
+        clear("Game over");
+    }
+
+    /**
+     * Clears the previous results while a new position is being searched.
+     * player1Turn true if player 1 is to move in the new position
+     */
+    public void showThinking(boolean player1Turn) {
+        this.player1Turn = player1Turn;
+        clear("Thinking...");
+    }
+
+    /**
+     * Shows a search result for the position given to showThinking.
+     * result the search result, with its score from the side to move's point of view
+     * done true if this is the search's final result
+     */
+    public void showResult(MancalaSearch.Result result, boolean done) {
+        scoreForPlayer1 = player1Turn ? result.getScore() : -result.getScore();
+        hasScore = true;
+        status = done ? "Done" : "Thinking...";
+        bestMove = "Best move: " + pitLabel(result.getBestPit());
+        eval = "Eval: " + (scoreForPlayer1 > 0 ? "+" : "") + scoreForPlayer1 + " for Player 1";
+        depth = "Depth: " + result.getDepth();
+        speed = String.format("Speed: %,d nodes/s", result.getNodesPerSecond());
+        repaint();
+    }
+
+    private void clear(String status) {
+        this.status = status;
+        hasScore = false;
+        bestMove = eval = depth = speed = "";
+        repaint();
+    }
+
+    /**
+     * return the label the view shows for a pit (A1..A6, B1..B6)
+     */
+    private static String pitLabel(int pit) {
+        return pit < MancalaModel.A_STORE ? "A" + (pit + 1) : "B" + (pit - MancalaModel.A_STORE);
+    }
+
+    /**
+     * Paints the evaluation bar and the result lines.
+     * g the Graphics context used for drawing
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+        // evaluation bar: Player 2's part on top, Player 1's part below
+        int barH = getHeight() - 2 * PAD;
+        int clamped = Math.max(-BAR_RANGE, Math.min(BAR_RANGE, hasScore ? scoreForPlayer1 : 0));
+        int p1H = barH * (clamped + BAR_RANGE) / (2 * BAR_RANGE);
+        g2.setColor(P2_COLOR);
+        g2.fillRect(PAD, PAD, BAR_W, barH - p1H);
+        g2.setColor(P1_COLOR);
+        g2.fillRect(PAD, PAD + barH - p1H, BAR_W, p1H);
+        g2.setColor(Color.GRAY);
+        g2.drawRect(PAD, PAD, BAR_W, barH);
+        g2.drawLine(PAD - 3, PAD + barH / 2, PAD + BAR_W + 3, PAD + barH / 2);
+
+        int x = 2 * PAD + BAR_W;
+        int y = PAD + 14;
+        g2.setColor(Color.DARK_GRAY);
+        g2.setFont(TITLE_FONT);
+        g2.drawString("Analysis", x, y);
+        g2.setFont(FONT);
+        g2.drawString(status, x, y += LINE_H);
+        g2.setColor(Color.BLACK);
+        g2.drawString(bestMove, x, y += LINE_H + 6);
+        g2.drawString(eval, x, y += LINE_H);
+        g2.drawString(depth, x, y += LINE_H);
+        g2.drawString(speed, x, y += LINE_H);
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ * The MancalaAnalysisService class analyses the game for a MancalaAnalysisPanel.
+ * It observes the MancalaModel, and every time the model changes it starts searching
+ * the new position on a single background thread, so listeners and painting on the
+ * event dispatch thread never wait for the search. A search still running for an
+ * older position is stopped first.
+ *
+ * Each completed iteration of the search is handed over through an atomic
+ * reference. A Swing timer on the EDT picks up the latest one at a throttled rate
+ * and shows it on the panel. Results of a stale position are never shown.
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaAnalysisService.java
+import javax.swing.Timer;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class MancalaAnalysisService implements ChangeListener {
+    // analysis of one position gives up after this long, unless solved sooner
+    private static final long ANALYSIS_MILLIS = 60_000;
+    private static final int PUBLISH_INTERVAL_MILLIS = 100;
+
+    private final MancalaModel model;
+    private final MancalaAnalysisPanel panel;
+    private final MancalaSearch search = new MancalaSearch();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "mancala-analysis");
+        t.setDaemon(true);
+        return t;
+    });
+    // bumped for every new position; results tagged with an older value are stale
+    private final AtomicInteger generation = new AtomicInteger();
+    private final AtomicReference<Update> latest = new AtomicReference<>();
+    private final Timer publisher;
+    private volatile int running = -1; // generation of the search in progress
+    private boolean enabled;
+
+    /**
+     * One search result, tagged with the position it belongs to.
+     */
+    private static final class Update {
+        final int generation;
+        final MancalaSearch.Result result;
+        final boolean done;
+
+        Update(int generation, MancalaSearch.Result result, boolean done) {
+            this.generation = generation;
+            this.result = result;
+            this.done = done;
+        }
+    }
+
+    /**
+     * Constructs a disabled analysis service.
+     * model the MancalaModel to analyse
+     * panel the MancalaAnalysisPanel showing the results
+     */
+    public MancalaAnalysisService(MancalaModel model, MancalaAnalysisPanel panel) {
+        model.requireStandard("MancalaAnalysisService");
+        this.model = model;
+        this.panel = panel;
+        this.publisher = new Timer(PUBLISH_INTERVAL_MILLIS, e -> publish());
+        search.setProgressListener(result -> {
+            if (generation.get() != running) {
+                search.stop(); // the position changed; don't wait for the next clock check
+                return;
+            }
+            latest.set(new Update(running, result, false));
+        });
+        panel.showDisabled();
+    }
+
+    /**
+     * Turns the analysis on or off. Call on the EDT.
+     * enabled true to analyse every position the model reaches
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (enabled) {
+            analyse();
+        } else {
+            cancel();
+            panel.showDisabled();
+        }
+    }
+
+    /**
+     * Lets the analysis look up positions with few stones left.
+     * endgame the endgame database to use, or null for none
+     */
+    public void setEndgameDatabase(MancalaEndgameDatabase endgame) {
+        search.setEndgameDatabase(endgame);
+    }
+
+    /**
+     * Lets the analysis answer opening positions from the book.
+     * book the opening book to use, or null for none
+     */
+    public void setOpeningBook(MancalaOpeningBook book) {
+        search.setOpeningBook(book);
+        search.setUseBookAnswers(true);
+    }
+
+    /**
+     * Starts analysing the model's new position.
+     * evt the ChangeEvent fired by the model
+     */
+    @Override
+    public void stateChanged(ChangeEvent evt) {
+        if (enabled) {
+            analyse();
+        }
+    }
+
+    /**
+     * Stops the current analysis and drops any result not shown yet.
+     */
+    private void cancel() {
+        generation.incrementAndGet();
+        search.stop();
+        latest.set(null);
+        publisher.stop();
+    }
+
+    private void analyse() {
+        cancel();
+        if (model.isGameOver()) {
+            panel.showGameOver();
+            return;
+        }
+        final int gen = generation.get();
+        MancalaSnapshot position = model.getSnapshot();
+        final int[] board = position.getBoard();
+        final boolean player1Turn = position.isPlayer1Turn();
+        panel.showThinking(player1Turn);
+        publisher.start();
+        executor.execute(() -> {
+            if (generation.get() != gen) {
+                return; // a newer position was queued behind us
+            }
+            running = gen;
+            MancalaSearch.Result result = search.search(board, player1Turn, ANALYSIS_MILLIS, Integer.MAX_VALUE);
+            if (result != null && generation.get() == gen) {
+                latest.set(new Update(gen, result, true));
+            }
+        });
+    }
+
+    /**
+     * Runs on the EDT every PUBLISH_INTERVAL_MILLIS while a search is running and
+     * shows the newest result, if it belongs to the current position.
+     */
+    private void publish() {
+        Update update = latest.getAndSet(null);
+        if (update == null || update.generation != generation.get()) {
+            return;
+        }
+        panel.showResult(update.result, update.done);
+        if (update.done) {
+            publisher.stop();
+        }
+    }
+}
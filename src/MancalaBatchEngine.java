@@ -0,0 +1,381 @@
+/**
+ * The MancalaBatchEngine class applies moves to many independent boards at once.
+ * Boards are kept in struct-of-arrays form: one primitive int array per slot, so
+ * slot j of board i is slots[j][i], plus one turn flag per board. A batch move
+ * sows, captures and switches turns for every board in three passes:
+ *
+ * 1. per board: pick up the selected pit and work out the number of full laps,
+ *    the remaining stones and the landing slot;
+ * 2. per slot: add each board's share of the sown stones. A slot receives the
+ *    full laps plus one more if it lies within the remainder after the selected
+ *    pit, which is plain arithmetic on the slot's position in the mover's
+ *    13-slot cycle, so there is no per-stone loop and no data-dependent branch;
+ * 3. per board: apply the capture and the turn switch at the landing slot.
+ *
+ * Pass 2 does most of the work and is a straight loop over contiguous int
+ * arrays, the shape C2's superword pass turns into SIMD code. The incubating JDK
+ * Vector API would need --add-modules jdk.incubator.vector on every compile and
+ * run, which this source tree does not have, so the batch engine relies on that
+ * auto-vectorization instead of explicit vectors. Results are exactly those of
+ * MancalaModel.makeMove, which main checks board by board before timing both.
+ * Usage: java MancalaBatchEngine [boards] [seconds]
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaBatchEngine.java
+import java.util.Random;
+
+public class MancalaBatchEngine {
+    private static final int A_STORE = MancalaModel.A_STORE;
+    private static final int B_STORE = MancalaModel.B_STORE;
+    private static final int LAP = 13;
+    // boards per pass; keeps a block's scratch arrays in the L1 cache
+    private static final int BLOCK = 256;
+
+    private final int capacity;
+    private final int[][] slots = new int[14][];
+    private final boolean[] player1Turn;
+    private int size;
+
+    // per-board scratch for a batch move, filled by pass 1
+    private final int[] offset;
+    private final int[] start;
+    private final int[] laps;
+    private final int[] rem;
+    private final int[] landing;
+
+    /**
+     * Allocates room for a fixed number of boards.
+     * capacity the maximum number of boards in the batch
+     */
+    public MancalaBatchEngine(int capacity) {
+        this.capacity = capacity;
+        for (int j = 0; j < 14; j++) {
+            slots[j] = new int[capacity];
+        }
+        player1Turn = new boolean[capacity];
+        offset = new int[capacity];
+        start = new int[capacity];
+        laps = new int[capacity];
+        rem = new int[capacity];
+        landing = new int[capacity];
+    }
+
+    /**
+     * return the number of boards in the batch
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Removes every board from the batch.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Appends a board to the batch.
+     * board the 14 slot counts, in MancalaModel.getBoard order
+     * player1 true if Player 1 is to move
+     * return the index of the new board
+     */
+    public int add(int[] board, boolean player1) {
+        if (size == capacity) {
+            throw new IllegalStateException("batch is full: " + capacity + " boards");
+        }
+        set(size, board, player1);
+        return size++;
+    }
+
+    /**
+     * Replaces a board in the batch.
+     * index the board to replace
+     * board the 14 slot counts
+     * player1 true if Player 1 is to move
+     */
+    public void set(int index, int[] board, boolean player1) {
+        for (int j = 0; j < 14; j++) {
+            slots[j][index] = board[j];
+        }
+        player1Turn[index] = player1;
+    }
+
+    /**
+     * Copies one board out of the batch.
+     * index the board to copy
+     * dest an array of at least 14 ints to receive the slot counts
+     */
+    public void get(int index, int[] dest) {
+        for (int j = 0; j < 14; j++) {
+            dest[j] = slots[j][index];
+        }
+    }
+
+    public boolean isPlayer1Turn(int index) {
+        return player1Turn[index];
+    }
+
+    /**
+     * Copies every board and turn flag of another batch into this one.
+     * other a batch with no more boards than this one's capacity
+     */
+    public void copyFrom(MancalaBatchEngine other) {
+        size = other.size;
+        for (int j = 0; j < 14; j++) {
+            System.arraycopy(other.slots[j], 0, slots[j], 0, size);
+        }
+        System.arraycopy(other.player1Turn, 0, player1Turn, 0, size);
+    }
+
+    /**
+     * Plays one move on every board of the batch.
+     * picks the pit to sow for each board, or a negative value to leave that board unchanged
+     */
+    public void move(int[] picks) {
+        for (int from = 0; from < size; from += BLOCK) {
+            moveBlock(picks, from, Math.min(size, from + BLOCK));
+        }
+    }
+
+    /**
+     * Runs the three passes of a batch move over boards from..to-1, so the scratch
+     * arrays of a block stay in cache between passes.
+     */
+    private void moveBlock(int[] picks, int from, int to) {
+        // pass 1: pick up the stones and find the landing slot
+        for (int i = from; i < to; i++) {
+            int pit = picks[i];
+            if (pit < 0) {
+                offset[i] = 0;
+                start[i] = 0;
+                laps[i] = 0;
+                rem[i] = 0;
+                landing[i] = -1;
+                continue;
+            }
+            boolean player1 = player1Turn[i];
+            int count = slots[pit][i];
+            if (count == 0 || (player1 ? pit >= A_STORE : pit <= A_STORE || pit >= B_STORE)) {
+                throw new IllegalArgumentException("pit " + pit + " is not legal on board " + i);
+            }
+            slots[pit][i] = 0;
+            // position in the mover's cycle: Player 1 starts at slot 0, Player 2 at slot 7,
+            // and the opponent's store always falls on position 13
+            int off = player1 ? 0 : 7;
+            int s = pit + off;
+            if (s >= 14) {
+                s -= 14;
+            }
+            int l = count / LAP;
+            int r = count - l * LAP;
+            int last = s + r;
+            if (last >= LAP) {
+                last -= LAP;
+            }
+            int slot = last - off;
+            offset[i] = off;
+            start[i] = s;
+            laps[i] = l;
+            rem[i] = r;
+            landing[i] = slot < 0 ? slot + 14 : slot;
+        }
+        // pass 2: sow, one slot array at a time. Written with shifts and masks rather
+        // than conditionals so the loop body vectorizes.
+        for (int j = 0; j < 14; j++) {
+            int[] slot = slots[j];
+            for (int i = from; i < to; i++) {
+                int pos = j + offset[i];
+                pos -= 14 & ((13 - pos) >> 31);
+                int d = pos - start[i];
+                d += LAP & (d >> 31);
+                // 1 if 1 <= d <= rem, else 0
+                int extra = ((d - 1 - rem[i]) & ~(d - 1)) >>> 31;
+                // all ones unless pos is the skipped opponent's store
+                int keep = ((pos - LAP) | (LAP - pos)) >> 31;
+                slot[i] += (laps[i] + extra) & keep;
+            }
+        }
+        // pass 3: captures and turns
+        for (int i = from; i < to; i++) {
+            int last = landing[i];
+            if (last < 0) {
+                continue;
+            }
+            boolean player1 = player1Turn[i];
+            int ownStore = player1 ? A_STORE : B_STORE;
+            boolean ownPit = player1 ? last < A_STORE : last > A_STORE && last < B_STORE;
+            if (ownPit && slots[last][i] == 1 && slots[12 - last][i] > 0) {
+                slots[ownStore][i] += slots[12 - last][i] + 1;
+                slots[last][i] = 0;
+                slots[12 - last][i] = 0;
+            }
+            if (last != ownStore) {
+                player1Turn[i] = !player1;
+            }
+        }
+    }
+
+    /**
+     * Checks every board for the end of the game: one side has no stones left in its pits.
+     * over receives true for each finished board
+     * return the number of finished boards
+     */
+    public int gameOver(boolean[] over) {
+        int n = size;
+        int[] sideA = landing;
+        int[] sideB = rem;
+        java.util.Arrays.fill(sideA, 0, n, 0);
+        java.util.Arrays.fill(sideB, 0, n, 0);
+        for (int j = 0; j < A_STORE; j++) {
+            int[] a = slots[j];
+            int[] b = slots[12 - j];
+            for (int i = 0; i < n; i++) {
+                sideA[i] += a[i];
+                sideB[i] += b[i];
+            }
+        }
+        int finished = 0;
+        for (int i = 0; i < n; i++) {
+            boolean done = sideA[i] == 0 || sideB[i] == 0;
+            over[i] = done;
+            finished += done ? 1 : 0;
+        }
+        return finished;
+    }
+
+    /**
+     * Scores every board by store difference from the side to move's point of view,
+     * the same static evaluation MancalaSearch uses at its leaves.
+     * scores receives one score per board
+     */
+    public void evaluate(int[] scores) {
+        int[] a = slots[A_STORE];
+        int[] b = slots[B_STORE];
+        for (int i = 0; i < size; i++) {
+            int diff = a[i] - b[i];
+            scores[i] = player1Turn[i] ? diff : -diff;
+        }
+    }
+
+    public static void main(String[] args) {
+        int boards = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 16;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 2;
+        Random random = new Random(21);
+
+        MancalaModel[] models = new MancalaModel[boards];
+        int[] picks = new int[boards];
+        MancalaBatchEngine initial = new MancalaBatchEngine(boards);
+        for (int i = 0; i < boards; i++) {
+            models[i] = randomPosition(random, 1 + random.nextInt(12));
+            picks[i] = randomPick(models[i], random);
+            initial.add(models[i].getBoard(), models[i].isPlayer1Turn());
+        }
+
+        // exact agreement with MancalaModel.makeMove, including game-over checks
+        MancalaBatchEngine batch = new MancalaBatchEngine(boards);
+        batch.copyFrom(initial);
+        batch.move(picks);
+        boolean[] over = new boolean[boards];
+        batch.gameOver(over);
+        int[] board = new int[14];
+        for (int i = 0; i < boards; i++) {
+            if (picks[i] < 0) {
+                continue;
+            }
+            MancalaModel model = models[i];
+            long token = model.makeMove(picks[i]);
+            batch.get(i, board);
+            if (!java.util.Arrays.equals(board, model.getBoard()) || batch.isPlayer1Turn(i) != model.isPlayer1Turn()
+                    || over[i] != model.isGameOver()) {
+                throw new IllegalStateException("board " + i + " differs from MancalaModel after pit " + picks[i]);
+            }
+            model.unmakeMove(token);
+        }
+        System.out.println(boards + " boards match MancalaModel.makeMove");
+
+        long batchRate = time(seconds, boards, () -> {
+            batch.copyFrom(initial);
+            batch.move(picks);
+            return batch.gameOver(over);
+        });
+        long modelRate = time(seconds, boards, () -> {
+            int finished = 0;
+            for (int i = 0; i < boards; i++) {
+                if (picks[i] >= 0) {
+                    MancalaModel model = models[i];
+                    long token = model.makeMove(picks[i]);
+                    finished += model.isGameOver() ? 1 : 0;
+                    model.unmakeMove(token);
+                }
+            }
+            return finished;
+        });
+        System.out.printf("batch (struct of arrays): %,d boards/s%n", batchRate);
+        System.out.printf("MancalaModel per board:   %,d boards/s (%.2fx)%n", modelRate,
+                (double) batchRate / modelRate);
+    }
+
+    private interface Step {
+        int run();
+    }
+
+    /**
+     * Runs a step repeatedly, first for a warmup of the same length as the measurement.
+     * return the number of boards moved per second
+     */
+    private static long time(double seconds, int boards, Step step) {
+        long budget = (long) (seconds * 1e9);
+        long sink = 0;
+        for (int round = 0; round < 2; round++) {
+            long begin = System.nanoTime();
+            long steps = 0;
+            long elapsed;
+            do {
+                sink += step.run();
+                steps++;
+                elapsed = System.nanoTime() - begin;
+            } while (elapsed < budget);
+            if (round == 1) {
+                if (sink == Long.MIN_VALUE) {
+                    System.out.println(sink);
+                }
+                return (long) (steps * boards * 1e9 / elapsed);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Plays a random number of random moves from a new game.
+     */
+    private static MancalaModel randomPosition(Random random, int stones) {
+        MancalaModel model = new MancalaModel();
+        model.newGame(stones);
+        int plies = random.nextInt(40);
+        for (int p = 0; p < plies && !model.isGameOver(); p++) {
+            model.makeMove(randomPick(model, random));
+        }
+        return model;
+    }
+
+    /**
+     * return a random legal pit, or -1 if the game is over
+     */
+    private static int randomPick(MancalaModel model, Random random) {
+        if (model.isGameOver()) {
+            return -1;
+        }
+        int first = model.isPlayer1Turn() ? 0 : 7;
+        int pit;
+        do {
+            pit = first + random.nextInt(6);
+        } while (model.getBoard()[pit] == 0);
+        return pit;
+    }
+}
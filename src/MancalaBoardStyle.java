@@ -47,11 +47,17 @@ public interface MancalaBoardStyle {
  */
 // Two example styles
 class ClassicStyle implements MancalaBoardStyle {
-    public Color boardColor(){ return new Color(222, 201, 158); }
-    public Color pitColor(){ return new Color(184, 138, 79); }
-    public Color storeColor(){ return new Color(164, 118, 59); }
-    public Color stoneColor(){ return new Color(50, 50, 50); }
-    public Font  labelFont(){ return new Font("SansSerif", Font.BOLD, 14); }
+    private static final Color BOARD = new Color(222, 201, 158);
+    private static final Color PIT = new Color(184, 138, 79);
+    private static final Color STORE = new Color(164, 118, 59);
+    private static final Color STONE = new Color(50, 50, 50);
+    private static final Font LABEL = new Font("SansSerif", Font.BOLD, 14);
+
+    public Color boardColor(){ return BOARD; }
+    public Color pitColor(){ return PIT; }
+    public Color storeColor(){ return STORE; }
+    public Color stoneColor(){ return STONE; }
+    public Font  labelFont(){ return LABEL; }
 }
 /**
  * The OceanStyle class implements the MancalaBoardStyle interface and 
@@ -61,9 +67,15 @@ class ClassicStyle implements MancalaBoardStyle {
  */
 
 class OceanStyle implements MancalaBoardStyle {
-    public Color boardColor(){ return new Color(212, 235, 248); }
-    public Color pitColor(){ return new Color(88, 156, 215); }
-    public Color storeColor(){ return new Color(60, 123, 190); }
-    public Color stoneColor(){ return new Color(245, 245, 245); }
-    public Font  labelFont(){ return new Font("SansSerif", Font.BOLD, 14); }
+    private static final Color BOARD = new Color(212, 235, 248);
+    private static final Color PIT = new Color(88, 156, 215);
+    private static final Color STORE = new Color(60, 123, 190);
+    private static final Color STONE = new Color(245, 245, 245);
+    private static final Font LABEL = new Font("SansSerif", Font.BOLD, 14);
+
+    public Color boardColor(){ return BOARD; }
+    public Color pitColor(){ return PIT; }
+    public Color storeColor(){ return STORE; }
+    public Color stoneColor(){ return STONE; }
+    public Font  labelFont(){ return LABEL; }
 }
@@ -0,0 +1,95 @@
+/**
+ * The MancalaChangeEvent class is the ChangeEvent MancalaModel sends its listeners.
+ * Besides the source it says what kind of change happened, which slots (pits and
+ * stores) changed, whether the move captured or earned a free turn, and whether
+ * the turn switched, so views can redraw only what changed. On boards larger
+ * than the standard one the changed slots do not fit the mask, so moves report
+ * ALL_SLOTS and isSlotChanged answers true for every slot.
+ *
+ * The model reuses one event object for every notification to avoid garbage on the
+ * move path, so listeners must read it during stateChanged and not keep it.
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaChangeEvent.java
+import javax.swing.event.ChangeEvent;
+
+public class MancalaChangeEvent extends ChangeEvent {
+    public static final int ALL_SLOTS = (1 << 14) - 1;
+
+    /**
+     * What the model did: started a game or loaded a position, made a move,
+     * undid a move, or jumped through its history.
+     */
+    public enum Kind { NEW_GAME, MOVE, UNDO, SEEK }
+
+    private Kind kind = Kind.NEW_GAME;
+    private int changedSlots = ALL_SLOTS;
+    private long move = -1;
+    private boolean turnSwitched = true;
+
+    /**
+     * Constructs an event for the given model.
+     * source the MancalaModel sending the event
+     */
+    public MancalaChangeEvent(Object source) {
+        super(source);
+    }
+
+    /**
+     * Fills in the event before it is sent.
+     */
+    void set(Kind kind, int changedSlots, long move, boolean turnSwitched) {
+        this.kind = kind;
+        this.changedSlots = changedSlots;
+        this.move = move;
+        this.turnSwitched = turnSwitched;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * return a bitmask of the changed slots; bit i is set if getBoard()[i] may have changed
+     */
+    public int getChangedSlots() {
+        return changedSlots;
+    }
+
+    /**
+     * return true if the given slot may have changed; always true for ALL_SLOTS and
+     * for slots 14 and up, which only variant boards have and the mask cannot hold
+     */
+    public boolean isSlotChanged(int slot) {
+        return changedSlots == ALL_SLOTS || slot >= 14 || (changedSlots & (1 << slot)) != 0;
+    }
+
+    /**
+     * return the undo token of the move made or undone, or -1 for other kinds of change
+     */
+    public long getMove() {
+        return move;
+    }
+
+    /**
+     * return true if the move made or undone was a capture
+     */
+    public boolean isCapture() {
+        return move >= 0 && MancalaModel.isCapture(move);
+    }
+
+    /**
+     * return true if the move made or undone earned a free turn
+     */
+    public boolean isFreeTurn() {
+        return move >= 0 && MancalaModel.isFreeTurn(move);
+    }
+
+    /**
+     * return true if the side to move may have changed
+     */
+    public boolean isTurnSwitched() {
+        return turnSwitched;
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * The MancalaComputerOpponent class lets the computer play Player 2 (the B pits).
+ * It observes the MancalaModel and, whenever it is Player 2's turn, searches the
+ * position with MancalaSearch on a background SwingWorker so the UI never stalls.
+ * The chosen move is applied on the event dispatch thread, unless the position
+ * changed in the meantime (e.g. the user started a new game or undid a move).
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaComputerOpponent.java
+import javax.swing.*;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+public class MancalaComputerOpponent implements ChangeListener {
+    private final MancalaModel model;
+    private final MancalaSearch search = new MancalaSearch();
+    private final long millisPerMove;
+    private boolean enabled;
+    private SwingWorker<MancalaSearch.Result, Void> worker;
+
+    /**
+     * Constructs a computer opponent for the given model.
+     * model the MancalaModel to play on
+     * millisPerMove the search time budget for each move
+     */
+    public MancalaComputerOpponent(MancalaModel model, long millisPerMove) {
+        model.requireStandard("MancalaComputerOpponent");
+        this.model = model;
+        this.millisPerMove = millisPerMove;
+    }
+
+    /**
+     * Turns the computer player on or off. Turning it on during Player 2's turn
+     * makes it move right away.
+     * enabled true to let the computer play Player 2
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled && worker != null) {
+            search.stop();
+        }
+        think();
+    }
+
+    /**
+     * Lets the computer play positions with few stones left perfectly.
+     * endgame the endgame database to use, or null for none
+     */
+    public void setEndgameDatabase(MancalaEndgameDatabase endgame) {
+        search.setEndgameDatabase(endgame);
+    }
+
+    /**
+     * Lets the computer play book moves in the opening without searching.
+     * book the opening book to use, or null for none
+     */
+    public void setOpeningBook(MancalaOpeningBook book) {
+        search.setOpeningBook(book);
+        search.setUseBookAnswers(true);
+    }
+
+    /**
+     * Starts thinking when the model reports it is Player 2's turn.
+     * evt the ChangeEvent fired by the model
+     */
+    @Override
+    public void stateChanged(ChangeEvent evt) {
+        think();
+    }
+
+    private void think() {
+        if (!enabled || worker != null || model.isPlayer1Turn() || model.isGameOver()) {
+            return;
+        }
+        final MancalaSnapshot position = model.getSnapshot();
+        final int[] board = position.getBoard();
+        worker = new SwingWorker<MancalaSearch.Result, Void>() {
+            @Override
+            protected MancalaSearch.Result doInBackground() {
+                return search.search(board, false, millisPerMove, Integer.MAX_VALUE);
+            }
+
+            @Override
+            protected void done() {
+                worker = null;
+                MancalaSearch.Result result;
+                try {
+                    result = get();
+                } catch (Exception e) {
+                    return;
+                }
+                // drop the answer if the game moved on while we were thinking
+                if (enabled && result != null && !model.isPlayer1Turn()
+                        && model.getSnapshot().getVersion() == position.getVersion()) {
+                    model.move(result.getBestPit());
+                } else {
+                    think();
+                }
+            }
+        };
+        worker.execute();
+    }
+}
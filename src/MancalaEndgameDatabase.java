@@ -0,0 +1,310 @@
+/**
+ * The MancalaEndgameDatabase class holds perfect-play values for every position
+ * with up to a fixed number of stones left in the twelve playing pits. The value
+ * of a position is the best store difference the side to move can still make
+ * from the stones in play (stones already in the stores do not matter), so the
+ * final score of a position is its current store difference plus this value.
+ *
+ * Positions are keyed by the canonical index of a MancalaPositionIndexer over the
+ * twelve playing pits, so a position with Player 2 to move shares its entry with
+ * the mirrored position with Player 1 to move. The database is generated by
+ * retrograde analysis. No move ever puts a stone back into play, and a move that
+ * keeps the count the same only pushes stones forward on the mover's side, which
+ * makes that side's six-pit distribution lexicographically smaller while the other
+ * side stays put. So solving counts upward and, within a count, ordering positions
+ * by their larger side distribution and then their smaller one solves every
+ * position after all its successors, starting from the finished games.
+ *
+ * Values are stored one byte per position in a file that is read (and written
+ * during generation) through MappedByteBuffers, so a lookup is O(1) and the
+ * table never has to fit on the heap.
+ * Usage: java MancalaEndgameDatabase maxStones file   (generate)
+ *        java MancalaEndgameDatabase -check file        (check searches with it)
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaEndgameDatabase.java
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public class MancalaEndgameDatabase {
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+
+    private static final int MAGIC = 0x4D454442; // "MEDB"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 16;
+    private static final int CHUNK_BITS = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+    private final int maxStones;
+    private final MappedByteBuffer[] chunks;
+    private final MancalaPositionIndexer indexer;
+
+    private MancalaEndgameDatabase(MancalaPositionIndexer indexer, MappedByteBuffer[] chunks) {
+        this.maxStones = indexer.getMaxStones();
+        this.indexer = indexer;
+        this.chunks = chunks;
+    }
+
+    /**
+     * Opens an existing database file read-only.
+     * file the database file written by generate
+     * return the database
+     */
+    public static MancalaEndgameDatabase open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading until the header is complete
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+                throw new IOException("not an endgame database: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported endgame database version " + version);
+            }
+            MancalaPositionIndexer indexer = new MancalaPositionIndexer(header.getInt(), false);
+            long size = indexer.size();
+            if (channel.size() < HEADER_BYTES + size) {
+                throw new IOException("truncated endgame database: " + file);
+            }
+            return new MancalaEndgameDatabase(indexer, map(channel, FileChannel.MapMode.READ_ONLY, size));
+        }
+    }
+
+    /**
+     * Generates the database for every position with up to maxStones stones in play
+     * and writes it to file, replacing any existing file.
+     * maxStones the largest number of stones in play to solve (at most 127)
+     * file where to write the database
+     * return the generated database, ready for lookups
+     */
+    public static MancalaEndgameDatabase generate(int maxStones, Path file) throws IOException {
+        if (maxStones < 0 || maxStones > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("maxStones must be between 0 and 127: " + maxStones);
+        }
+        MancalaPositionIndexer indexer = new MancalaPositionIndexer(maxStones, false);
+        long size = indexer.size();
+        MancalaEndgameDatabase db;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putInt(maxStones).putInt(0).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            db = new MancalaEndgameDatabase(indexer, map(channel, FileChannel.MapMode.READ_WRITE, size));
+        }
+        db.solve();
+        for (MappedByteBuffer chunk : db.chunks) {
+            chunk.force();
+        }
+        return db;
+    }
+
+    private static MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long size)
+            throws IOException {
+        int count = (int) ((size + CHUNK_MASK) >>> CHUNK_BITS);
+        MappedByteBuffer[] chunks = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long offset = (long) i << CHUNK_BITS;
+            chunks[i] = channel.map(mode, HEADER_BYTES + offset, Math.min(CHUNK_MASK + 1, size - offset));
+        }
+        return chunks;
+    }
+
+    /**
+     * Fills in every value so each position's successors are already solved when it
+     * is reached: stone counts upward, then positions ordered by their larger side
+     * distribution (count, then rank) and then their smaller one. Only positions with
+     * Player 1 to move are solved; the rest are their mirror images.
+     */
+    private void solve() {
+        MancalaModel model = new MancalaModel();
+        int[] hiFirst = new int[14];
+        int[] loFirst = new int[14];
+        for (int k = 0; k <= maxStones; k++) {
+            for (int hi = (k + 1) / 2; hi <= k; hi++) {
+                int lo = k - hi;
+                long hiCount = indexer.sideCount(hi);
+                for (long hiRank = 0; hiRank < hiCount; hiRank++) {
+                    indexer.unrankSide(hiRank, hi, hiFirst, true);
+                    indexer.unrankSide(hiRank, hi, loFirst, false);
+                    long loCount = hi == lo ? hiRank + 1 : indexer.sideCount(lo);
+                    for (long loRank = 0; loRank < loCount; loRank++) {
+                        indexer.unrankSide(loRank, lo, hiFirst, false);
+                        indexer.unrankSide(loRank, lo, loFirst, true);
+                        solveInto(model, hiFirst);
+                        if (hi != lo || hiRank != loRank) {
+                            solveInto(model, loFirst);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void solveInto(MancalaModel model, int[] board) {
+        model.loadPosition(board, true);
+        put(indexer.index(board, true), (byte) solvePosition(model));
+    }
+
+    /**
+     * Computes one position's value from its already solved successors.
+     */
+    private int solvePosition(MancalaModel model) {
+        int[] b = model.getBoard();
+        boolean player1 = model.isPlayer1Turn();
+        if (model.isGameOver()) {
+            // each side sweeps its own stones
+            return model.getStonesOnSide(player1) - model.getStonesOnSide(!player1);
+        }
+        int first = player1 ? 0 : 7;
+        int store = player1 ? MancalaModel.A_STORE : MancalaModel.B_STORE;
+        int best = -Integer.MAX_VALUE;
+        for (int pit = first; pit < first + 6; pit++) {
+            if (b[pit] == 0) {
+                continue;
+            }
+            int before = b[store];
+            long token = model.makeMove(pit);
+            int gain = b[store] - before;
+            int child = probe(b, model.isPlayer1Turn());
+            int value = MancalaModel.isFreeTurn(token) ? gain + child : gain - child;
+            model.unmakeMove(token);
+            if (value > best) {
+                best = value;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Looks up the value of a position: the best store difference the side to move
+     * can still make from the stones in play. Safe to call from several threads.
+     * board the 14 slot counts in MancalaModel.getBoard order
+     * player1Turn true if player 1 is to move
+     * return the value, or UNKNOWN if more than getMaxStones stones are in play
+     */
+    public int probe(int[] board, boolean player1Turn) {
+        long index = index(board, player1Turn);
+        return index < 0 ? UNKNOWN : get(index);
+    }
+
+    /**
+     * Returns the index of a position's entry in the database.
+     * board the 14 slot counts in MancalaModel.getBoard order
+     * player1Turn true if player 1 is to move
+     * return the index, or -1 if more than getMaxStones stones are in play
+     */
+    public long index(int[] board, boolean player1Turn) {
+        return indexer.index(board, player1Turn);
+    }
+
+    private int get(long index) {
+        return chunks[(int) (index >>> CHUNK_BITS)].get((int) (index & CHUNK_MASK));
+    }
+
+    private void put(long index, byte value) {
+        chunks[(int) (index >>> CHUNK_BITS)].put((int) (index & CHUNK_MASK), value);
+    }
+
+    /**
+     * return the largest number of stones in play the database covers
+     */
+    public int getMaxStones() {
+        return maxStones;
+    }
+
+    /**
+     * Opens the database at file if it exists.
+     * file the database file
+     * return the database, or null if the file is missing or unreadable
+     */
+    public static MancalaEndgameDatabase openIfPresent(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return open(file);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: java MancalaEndgameDatabase maxStones file");
+            System.err.println("       java MancalaEndgameDatabase -check file");
+            System.exit(1);
+        }
+        if (args[0].equals("-check")) {
+            checkRootSearches(open(Paths.get(args[1])), 200);
+            return;
+        }
+        int maxStones = Integer.parseInt(args[0]);
+        Path file = Paths.get(args[1]);
+        long start = System.nanoTime();
+        MancalaEndgameDatabase db = generate(maxStones, file);
+        System.out.printf("Solved %d positions with up to %d stones in play in %.1f s -> %s%n",
+                new MancalaPositionIndexer(maxStones, false).size(), db.getMaxStones(), (System.nanoTime() - start) / 1e9, file);
+    }
+
+    /**
+     * Searches positions that are in the database with it attached and checks that
+     * every search still comes back with a legal pit: the database scores the
+     * positions below the root, but the root itself must be searched for a move.
+     * The stores hold the rest of a 3- or 4-stone game's stones, or of a game with
+     * just enough stones per pit for the stones in play.
+     * db the database to search with
+     * positions the number of random positions to try
+     */
+    private static void checkRootSearches(MancalaEndgameDatabase db, int positions) {
+        if (db.getMaxStones() < 2) {
+            // every position has a side without stones, so there is nothing to search
+            System.out.println("The database covers fewer than 2 stones in play; no positions to search");
+            return;
+        }
+        MancalaSearch search = new MancalaSearch(new MancalaTranspositionTable(1));
+        search.setEndgameDatabase(db);
+        SplittableRandom random = new SplittableRandom(5);
+        MancalaModel model = new MancalaModel();
+        int[] board = new int[14];
+        for (int n = 0; n < positions; n++) {
+            Arrays.fill(board, 0);
+            // at least one stone on each side, the rest anywhere in the twelve pits
+            int inPlay = 2 + random.nextInt(db.getMaxStones() - 1);
+            board[random.nextInt(6)]++;
+            board[7 + random.nextInt(6)]++;
+            for (int i = 2; i < inPlay; i++) {
+                int pit = random.nextInt(12);
+                board[pit < 6 ? pit : pit + 1]++;
+            }
+            int perPit = Math.max(3 + random.nextInt(2), (inPlay + 11) / 12);
+            int stored = 12 * perPit - inPlay;
+            board[MancalaModel.A_STORE] = stored / 2;
+            board[MancalaModel.B_STORE] = stored - stored / 2;
+            boolean player1 = random.nextBoolean();
+            if (db.probe(board, player1) == UNKNOWN) {
+                throw new IllegalStateException("position is not in the database: " + Arrays.toString(board));
+            }
+            model.loadPosition(board, player1);
+            MancalaSearch.Result result = search.search(model, 50);
+            if (result == null || !model.isLegalPick(result.getBestPit())) {
+                throw new IllegalStateException("search of database position " + Arrays.toString(board)
+                        + (player1 ? " A" : " B") + " to move returned " + result);
+            }
+        }
+        System.out.println("Checked " + positions + " root searches of database positions: all returned legal pits");
+    }
+}
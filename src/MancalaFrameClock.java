@@ -0,0 +1,88 @@
+/**
+ * The MancalaFrameClock class times animation frames. A dedicated daemon scheduler
+ * thread ticks at a fixed rate and hands one preallocated Runnable to the event
+ * dispatch thread per tick. The Runnable does the actual work there, so all Swing
+ * state is still touched only on the EDT.
+ *
+ * A tick is skipped if the previous frame has not run yet. A busy EDT therefore
+ * never builds up a backlog of frames, and animations should work from elapsed
+ * time (System.nanoTime) rather than from a frame count.
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaFrameClock.java
+import java.awt.EventQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class MancalaFrameClock {
+    private final long periodNanos;
+    private final AtomicBoolean framePending = new AtomicBoolean();
+    private final Runnable tick;
+    private final Runnable post;
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> ticking;
+
+    /**
+     * Constructs a stopped clock.
+     * framesPerSecond the tick rate
+     * frame the work to run on the EDT once per tick
+     */
+    public MancalaFrameClock(int framesPerSecond, Runnable frame) {
+        this.periodNanos = 1_000_000_000L / framesPerSecond;
+        this.post = () -> {
+            framePending.set(false);
+            frame.run();
+        };
+        this.tick = () -> {
+            if (framePending.compareAndSet(false, true)) {
+                EventQueue.invokeLater(post);
+            }
+        };
+    }
+
+    /**
+     * Starts ticking if the clock is not already running. Call on the EDT.
+     */
+    public void start() {
+        if (ticking != null) {
+            return;
+        }
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "mancala-frame-clock");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        ticking = scheduler.scheduleAtFixedRate(tick, 0, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops ticking. A frame already handed to the EDT may still run once.
+     * Call on the EDT.
+     */
+    public void stop() {
+        if (ticking != null) {
+            ticking.cancel(false);
+            ticking = null;
+        }
+    }
+
+    /**
+     * return true while the clock is ticking
+     */
+    public boolean isRunning() {
+        return ticking != null;
+    }
+
+    /**
+     * return the time between ticks, in nanoseconds
+     */
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * The MancalaGameRecorder class saves the games played on a MancalaModel to a
+ * game record archive. It listens to the model's change events: moves extend the
+ * current game, and undos and history jumps cut it back to the model's ply. A move
+ * that ends the game writes it to the MancalaRecordWriter as finished; a game
+ * still in progress when a new game starts (or on close) is written as unfinished,
+ * so readers can tell abandoned games apart.
+ * Positions set up with loadPosition are not standard starts and are not recorded.
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaGameRecorder.java
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+public class MancalaGameRecorder implements ChangeListener, Closeable {
+    private final MancalaModel model;
+    private final MancalaRecordWriter writer;
+    private byte[] pits = new byte[128];
+    private int count;
+    private int stones; // 0 while the position is not a recordable game
+
+    /**
+     * Constructs a recorder. Recording begins with the model's current game if no
+     * move has been made in it yet, otherwise with the next new game.
+     * model the MancalaModel to record
+     * writer the archive to write games to
+     */
+    public MancalaGameRecorder(MancalaModel model, MancalaRecordWriter writer) {
+        model.requireStandard("MancalaGameRecorder");
+        this.model = model;
+        this.writer = writer;
+        if (model.getPly() == 0) {
+            stones = standardStones(model.getBoard(), model.isPlayer1Turn());
+        }
+    }
+
+    @Override
+    public void stateChanged(ChangeEvent evt) {
+        MancalaChangeEvent.Kind kind = evt instanceof MancalaChangeEvent
+                ? ((MancalaChangeEvent) evt).getKind() : MancalaChangeEvent.Kind.SEEK;
+        try {
+            if (kind == MancalaChangeEvent.Kind.NEW_GAME) {
+                save();
+                stones = standardStones(model.getBoard(), model.isPlayer1Turn());
+            } else if (kind == MancalaChangeEvent.Kind.MOVE) {
+                if (count == pits.length) {
+                    pits = Arrays.copyOf(pits, 2 * count);
+                }
+                pits[count++] = (byte) MancalaModel.tokenPit(((MancalaChangeEvent) evt).getMove());
+                if (model.isGameOver()) {
+                    save();
+                }
+            } else {
+                count = Math.min(count, model.getPly());
+                while (count < model.getPly()) {
+                    if (count == pits.length) {
+                        pits = Arrays.copyOf(pits, 2 * count);
+                    }
+                    pits[count] = (byte) MancalaModel.tokenPit(model.getHistoryMove(count));
+                    count++;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * return the stones per pit if the board is a game's starting position, else 0
+     */
+    private static int standardStones(int[] board, boolean player1Turn) {
+        int stones = board[0];
+        if (!player1Turn || stones == 0 || board[MancalaModel.A_STORE] != 0 || board[MancalaModel.B_STORE] != 0) {
+            return 0;
+        }
+        for (int i = 0; i < 13; i++) {
+            if (i != MancalaModel.A_STORE && board[i] != stones) {
+                return 0;
+            }
+        }
+        return stones;
+    }
+
+    /**
+     * Writes the current game, if it is recordable and has at least one move,
+     * marked finished if the model's game is over. An undo after the end brings the
+     * moves back from the model's history, so a game played on from there is
+     * written again when it ends or is abandoned.
+     */
+    private void save() throws IOException {
+        if (stones > 0 && count > 0) {
+            writer.writeGame(stones, pits, count, model.isGameOver());
+        }
+        count = 0;
+    }
+
+    /**
+     * Writes the games recorded so far out to the archive, including a game that
+     * has just ended. The game in progress is not written until it is over or
+     * abandoned.
+     */
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * Writes the game in progress and closes the writer.
+     */
+    @Override
+    public void close() throws IOException {
+        save();
+        writer.close();
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ * The MancalaLoadGenerator class measures a MancalaServer under many concurrent
+ * games. It opens one connection per game, each on its own virtual thread, waits
+ * until every game has connected and started, then lets all of them play random
+ * legal moves to the end at once. It reports the move round-trip latency
+ * percentiles and how many sessions and moves per second the server completed.
+ * Usage: java MancalaLoadGenerator [-host h] [-port n] [-games n] [-stones n]
+ *        [-seed n] [-embedded]   (-embedded starts a server in this process)
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaLoadGenerator.java
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class MancalaLoadGenerator {
+    private final String host;
+    private final int port;
+    private final int games;
+    private final int stones;
+    private final long seed;
+    private final CountDownLatch connected;
+    private final CountDownLatch go = new CountDownLatch(1);
+    private final ConcurrentLinkedQueue<long[]> latencies = new ConcurrentLinkedQueue<>();
+    private final AtomicLong finished = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    MancalaLoadGenerator(String host, int port, int games, int stones, long seed) {
+        this.host = host;
+        this.port = port;
+        this.games = games;
+        this.stones = stones;
+        this.seed = seed;
+        this.connected = new CountDownLatch(games);
+    }
+
+    /**
+     * Plays one game: connect, start it, wait for the others, then move until it ends.
+     * Every move's round trip is recorded in nanoseconds.
+     */
+    private void playGame(int game) {
+        SplittableRandom random = new SplittableRandom(seed + game);
+        long[] times = new long[64];
+        int moves = 0;
+        boolean counted = false;
+        try (Socket socket = new Socket(host, port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII))) {
+            socket.setTcpNoDelay(true);
+            OutputStream out = socket.getOutputStream();
+            String id = expectOk(request(out, in, "NEW " + stones));
+            String state = expectOk(request(out, in, "STATE " + id));
+            connected.countDown();
+            counted = true;
+            go.await();
+
+            int[] legal = new int[6];
+            while (!state.startsWith("OVER")) {
+                String[] words = state.split(" ");
+                boolean player1 = words[0].equals("A");
+                int n = 0;
+                for (int pit = player1 ? 0 : 7, end = pit + 6; pit < end; pit++) {
+                    if (Integer.parseInt(words[pit + 1]) > 0) {
+                        legal[n++] = pit;
+                    }
+                }
+                long start = System.nanoTime();
+                state = expectOk(request(out, in, "MOVE " + id + " " + legal[random.nextInt(n)]));
+                if (moves == times.length) {
+                    times = Arrays.copyOf(times, 2 * moves);
+                }
+                times[moves++] = System.nanoTime() - start;
+            }
+            request(out, in, "CLOSE " + id);
+            out.write("QUIT\n".getBytes(StandardCharsets.US_ASCII));
+            finished.incrementAndGet();
+        } catch (IOException | InterruptedException e) {
+            failed.incrementAndGet();
+        } finally {
+            if (!counted) {
+                connected.countDown();
+            }
+            latencies.add(Arrays.copyOf(times, moves));
+        }
+    }
+
+    private static String request(OutputStream out, BufferedReader in, String line) throws IOException {
+        out.write((line + "\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        String reply = in.readLine();
+        if (reply == null) {
+            throw new IOException("connection closed");
+        }
+        return reply;
+    }
+
+    private static String expectOk(String reply) throws IOException {
+        if (!reply.startsWith("OK ")) {
+            throw new IOException(reply);
+        }
+        return reply.substring(3);
+    }
+
+    /**
+     * Runs all games and prints the report.
+     */
+    void run() throws InterruptedException {
+        System.out.printf("%,d concurrent games against %s:%d%n", games, host, port);
+        long t0 = System.nanoTime();
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int g = 0; g < games; g++) {
+                final int game = g;
+                threads.execute(() -> playGame(game));
+            }
+            connected.await();
+            long t1 = System.nanoTime();
+            System.out.printf("connected and started in %.2f s%n", (t1 - t0) / 1e9);
+            go.countDown();
+            threads.shutdown();
+            threads.awaitTermination(1, TimeUnit.HOURS);
+            long t2 = System.nanoTime();
+            report((t2 - t1) / 1e9);
+        }
+    }
+
+    private void report(double seconds) {
+        int total = 0;
+        for (long[] times : latencies) {
+            total += times.length;
+        }
+        long[] all = new long[total];
+        int n = 0;
+        for (long[] times : latencies) {
+            System.arraycopy(times, 0, all, n, times.length);
+            n += times.length;
+        }
+        Arrays.sort(all);
+        System.out.printf("%,d games finished, %,d failed, %,d moves in %.2f s%n",
+                finished.get(), failed.get(), total, seconds);
+        System.out.printf("%,.0f sessions/s, %,.0f moves/s%n", finished.get() / seconds, total / seconds);
+        if (total > 0) {
+            System.out.printf("move latency: p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                    percentile(all, 0.50) / 1e6, percentile(all, 0.99) / 1e6, all[total - 1] / 1e6);
+        }
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (p * sorted.length))];
+    }
+
+    public static void main(String[] args) throws Exception {
+        String host = "localhost";
+        int port = MancalaServer.DEFAULT_PORT;
+        int games = 10_000;
+        int stones = 4;
+        long seed = 1;
+        boolean embedded = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-host": host = args[++i]; break;
+                case "-port": port = Integer.parseInt(args[++i]); break;
+                case "-games": games = Integer.parseInt(args[++i]); break;
+                case "-stones": stones = Integer.parseInt(args[++i]); break;
+                case "-seed": seed = Long.parseLong(args[++i]); break;
+                case "-embedded": embedded = true; break;
+                default:
+                    System.err.println("usage: java MancalaLoadGenerator [-host h] [-port n] [-games n]"
+                            + " [-stones n] [-seed n] [-embedded]");
+                    return;
+            }
+        }
+        MancalaServer server = null;
+        if (embedded) {
+            server = new MancalaServer(0, MancalaServer.DEFAULT_IDLE_SECONDS);
+            server.start();
+            port = server.getPort();
+        }
+        new MancalaLoadGenerator(host, port, games, stones, seed).run();
+        if (server != null) {
+            System.out.println(server.stats());
+            server.close();
+        }
+    }
+}
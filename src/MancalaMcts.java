@@ -0,0 +1,379 @@
+/**
+ * The MancalaMcts class is a Monte Carlo Tree Search engine, an alternative to the
+ * alpha-beta MancalaSearch that needs no evaluation function. Each iteration walks
+ * down the tree by UCT, adds the children of the node it stops at, finishes the
+ * game with random moves and credits the result to every node on the way.
+ *
+ * The tree lives in a preallocated node pool: parallel primitive arrays indexed by
+ * node number, with the children of a node stored next to each other. A search
+ * allocates nothing, and playouts use makeMove/unmakeMove and an inline xorshift
+ * generator. Once the pool is full the tree stops growing and iterations play
+ * out from the leaves they reach.
+ *
+ * With several threads the search uses root parallelism: every thread grows its
+ * own tree from the same root with its own random stream, and the root visit
+ * counts are summed at the end. The threads share nothing while they run, so no
+ * locks or virtual loss are needed.
+ * Usage: java MancalaMcts [millis] [threads]   (reports playouts per second)
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaMcts.java
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class MancalaMcts {
+    public static final int DEFAULT_NODES = 1 << 19;
+    // UCT exploration constant, sqrt(2) for results between 0 and 1
+    private static final double EXPLORATION = 1.41421356;
+    // iterations between two clock reads
+    private static final int CHECK_INTERVAL = 63;
+
+    private final Worker[] workers;
+    private final ExecutorService helperPool;
+    private long seed = 0x9E3779B97F4A7C15L;
+    private volatile boolean stopRequested;
+
+    /**
+     * Constructs a single-threaded search with the default node pool.
+     */
+    public MancalaMcts() {
+        this(1, DEFAULT_NODES);
+    }
+
+    /**
+     * Constructs a search with one tree per thread.
+     * threads the number of search threads, at least 1
+     * nodesPerThread the node pool size of each thread's tree
+     */
+    public MancalaMcts(int threads, int nodesPerThread) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1: " + threads);
+        }
+        workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(nodesPerThread);
+        }
+        helperPool = threads == 1 ? null : Executors.newFixedThreadPool(threads - 1, r -> {
+            Thread t = new Thread(r, "mancala-mcts-helper");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Sets the seed the random streams of the next searches derive from, so
+     * searches with a playout budget are reproducible.
+     * seed the seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * The outcome of one search: the most visited root move, the side to move's
+     * average result for it (0 = loss, 1 = win), and the playout count.
+     */
+    public static class Result {
+        private final int bestPit;
+        private final double winRate;
+        private final long playouts;
+        private final long elapsedNanos;
+
+        Result(int bestPit, double winRate, long playouts, long elapsedNanos) {
+            this.bestPit = bestPit;
+            this.winRate = winRate;
+            this.playouts = playouts;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getBestPit() { return bestPit; }
+        public double getWinRate() { return winRate; }
+        public long getPlayouts() { return playouts; }
+        public long getElapsedMillis() { return elapsedNanos / 1_000_000; }
+
+        /**
+         * return the search speed in playouts per second
+         */
+        public long getPlayoutsPerSecond() {
+            return elapsedNanos == 0 ? 0 : playouts * 1_000_000_000L / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("pit %d win rate %.3f playouts %d (%d playouts/s, %d ms)",
+                    bestPit, winRate, playouts, getPlayoutsPerSecond(), getElapsedMillis());
+        }
+    }
+
+    /**
+     * Searches a position until the time budget or the playout budget runs out,
+     * whichever comes first.
+     * board the 14 slot counts in MancalaModel.getBoard order
+     * player1Turn true if player 1 is to move
+     * millis the time budget, or Long.MAX_VALUE for none
+     * playouts the playout budget over all threads, or Long.MAX_VALUE for none
+     * return the best move found, or null if the game is over
+     */
+    public Result search(int[] board, boolean player1Turn, long millis, long playouts) {
+        long start = System.nanoTime();
+        long deadline = millis == Long.MAX_VALUE ? Long.MAX_VALUE : start + millis * 1_000_000L;
+        stopRequested = false;
+        int threads = workers.length;
+        for (int i = 0; i < threads; i++) {
+            long share = playouts == Long.MAX_VALUE ? Long.MAX_VALUE
+                    : playouts / threads + (i < playouts % threads ? 1 : 0);
+            workers[i].reset(board, player1Turn, MancalaSimulator.mix(seed + i), deadline, share);
+        }
+        if (workers[0].model.isGameOver()) {
+            return null;
+        }
+        Future<?>[] helpers = new Future<?>[threads - 1];
+        for (int i = 1; i < threads; i++) {
+            helpers[i - 1] = helperPool.submit(workers[i]::run);
+        }
+        workers[0].run();
+        for (Future<?> helper : helpers) {
+            try {
+                helper.get();
+            } catch (Exception e) {
+                // a failed helper only costs playouts; the other trees still count
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        // sum the root children's statistics over all trees, by pit
+        long[] visits = new long[14];
+        double[] value = new double[14];
+        long total = 0;
+        for (Worker w : workers) {
+            total += w.playouts;
+            for (int c = w.firstChild[0], end = c + w.childCount[0]; c >= 0 && c < end; c++) {
+                visits[w.pit[c]] += w.visits[c];
+                value[w.pit[c]] += w.value[c];
+            }
+        }
+        int best = -1;
+        for (int pit = 0; pit < 14; pit++) {
+            if (board[pit] > 0 && (player1Turn ? pit < 6 : pit > 6 && pit < 13)
+                    && (best < 0 || visits[pit] > visits[best])) {
+                best = pit;
+            }
+        }
+        return new Result(best, visits[best] == 0 ? 0.5 : value[best] / visits[best], total, elapsed);
+    }
+
+    /**
+     * Asks a running search to stop as soon as possible. Safe to call from any thread.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * One search thread's tree, model and random stream.
+     */
+    private class Worker {
+        // node pool; node 0 is the root, and a node's children are
+        // firstChild .. firstChild + childCount - 1
+        private final int[] firstChild;
+        private final byte[] childCount;
+        private final byte[] pit;            // the move leading to the node
+        private final boolean[] player1Moved; // who made that move
+        private final int[] visits;
+        private final double[] value;        // summed results, for the player who moved
+        private int used;
+
+        private final MancalaModel model = new MancalaModel();
+        private int[] path = new int[256];
+        private long[] tokens = new long[256];
+        private long rng;
+        private long deadline;
+        private long budget;
+        private long playouts;
+
+        Worker(int nodes) {
+            firstChild = new int[nodes];
+            childCount = new byte[nodes];
+            pit = new byte[nodes];
+            player1Moved = new boolean[nodes];
+            visits = new int[nodes];
+            value = new double[nodes];
+        }
+
+        void reset(int[] board, boolean player1Turn, long seed, long deadline, long budget) {
+            model.loadPosition(board, player1Turn);
+            rng = seed == 0 ? 1 : seed;
+            this.deadline = deadline;
+            this.budget = budget;
+            playouts = 0;
+            used = 1;
+            firstChild[0] = -1;
+            childCount[0] = 0;
+            visits[0] = 0;
+            value[0] = 0;
+        }
+
+        void run() {
+            while (playouts < budget) {
+                if ((playouts & CHECK_INTERVAL) == 0
+                        && (stopRequested || System.nanoTime() - deadline > 0)) {
+                    return;
+                }
+                iterate();
+                playouts++;
+            }
+        }
+
+        /**
+         * One iteration: select, expand, play out, back up.
+         */
+        private void iterate() {
+            int node = 0;
+            int depth = 0;
+            int moves = 0;
+            path[depth++] = 0;
+            // selection and expansion
+            while (!model.isGameOver()) {
+                boolean leaf = firstChild[node] < 0;
+                if (leaf && !expand(node)) {
+                    break; // pool full: play out from here
+                }
+                int child = leaf ? firstChild[node] + nextInt(childCount[node]) : select(node);
+                if (depth == path.length) {
+                    path = java.util.Arrays.copyOf(path, 2 * depth);
+                }
+                path[depth++] = child;
+                moves = push(moves, model.makeMove(pit[child]));
+                node = child;
+                if (leaf) {
+                    break;
+                }
+            }
+            // random playout
+            while (!model.isGameOver()) {
+                moves = push(moves, model.makeMove(randomPit()));
+            }
+            int a = model.getFinalScore(true);
+            int b = model.getFinalScore(false);
+            double result = a > b ? 1 : a < b ? 0 : 0.5; // for player 1
+            while (moves > 0) {
+                model.unmakeMove(tokens[--moves]);
+            }
+            // backup
+            for (int i = 0; i < depth; i++) {
+                int n = path[i];
+                visits[n]++;
+                value[n] += player1Moved[n] ? result : 1 - result;
+            }
+        }
+
+        private int push(int moves, long token) {
+            if (moves == tokens.length) {
+                tokens = java.util.Arrays.copyOf(tokens, 2 * moves);
+            }
+            tokens[moves] = token;
+            return moves + 1;
+        }
+
+        /**
+         * Adds a child for every legal move of the position at node.
+         * return false if the pool has no room for them
+         */
+        private boolean expand(int node) {
+            int[] b = model.getBoard();
+            boolean player1 = model.isPlayer1Turn();
+            int first = player1 ? 0 : 7;
+            int n = 0;
+            for (int p = first; p < first + 6; p++) {
+                if (b[p] > 0) {
+                    n++;
+                }
+            }
+            if (used + n > firstChild.length) {
+                return false;
+            }
+            int c = used;
+            for (int p = first; p < first + 6; p++) {
+                if (b[p] > 0) {
+                    firstChild[c] = -1;
+                    childCount[c] = 0;
+                    pit[c] = (byte) p;
+                    player1Moved[c] = player1;
+                    visits[c] = 0;
+                    value[c] = 0;
+                    c++;
+                }
+            }
+            firstChild[node] = used;
+            childCount[node] = (byte) n;
+            used = c;
+            return true;
+        }
+
+        /**
+         * return the child of node with the best UCT score; unvisited children first
+         */
+        private int select(int node) {
+            double logParent = Math.log(visits[node]);
+            int best = -1;
+            double bestScore = -1;
+            for (int c = firstChild[node], end = c + childCount[node]; c < end; c++) {
+                int v = visits[c];
+                if (v == 0) {
+                    return c;
+                }
+                double score = value[c] / v + EXPLORATION * Math.sqrt(logParent / v);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = c;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * return a uniformly chosen legal pit for the side to move
+         */
+        private int randomPit() {
+            int[] b = model.getBoard();
+            int first = model.isPlayer1Turn() ? 0 : 7;
+            int n = 0;
+            for (int p = first; p < first + 6; p++) {
+                if (b[p] > 0) {
+                    n++;
+                }
+            }
+            int k = nextInt(n);
+            for (int p = first; ; p++) {
+                if (b[p] > 0 && k-- == 0) {
+                    return p;
+                }
+            }
+        }
+
+        /**
+         * xorshift64* step, reduced to 0..bound-1
+         */
+        private int nextInt(int bound) {
+            rng ^= rng >>> 12;
+            rng ^= rng << 25;
+            rng ^= rng >>> 27;
+            return (int) (((rng * 0x2545F4914F6CDD1DL) >>> 33) * bound >>> 31);
+        }
+    }
+
+    public static void main(String[] args) {
+        long millis = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        MancalaModel model = new MancalaModel();
+        MancalaMcts mcts = new MancalaMcts(threads, DEFAULT_NODES);
+        for (int stones : new int[] {3, 4}) {
+            model.newGame(stones);
+            mcts.search(model.getBoard(), true, millis / 4, Long.MAX_VALUE); // warm-up
+            System.out.println(stones + " stones, " + threads + " threads: "
+                    + mcts.search(model.getBoard(), true, millis, Long.MAX_VALUE));
+        }
+    }
+}
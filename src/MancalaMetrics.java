@@ -0,0 +1,495 @@
+/**
+ * The MancalaMetrics class records where time goes while a game runs: latency
+ * histograms for MancalaModel.move, undo and listener notification and for
+ * MancalaView.paintComponent, counters for moves, captures and free turns, and
+ * Java Flight Recorder events for the same points (see the event classes at the
+ * end of this file, category "Mancala").
+ *
+ * Recording is off unless switched on, with setEnabled or -Dmancala.metrics=true.
+ * When off, each instrumented call costs one volatile read. When on, recording is
+ * lock-free and safe from any thread: histogram buckets are atomic counters and
+ * totals are LongAdders, so MancalaServer's many session threads do not contend.
+ *
+ * Histograms are log-linear like HdrHistogram: values are grouped by their
+ * highest set bit and every power of two is split into SUB_BUCKETS linear
+ * buckets, so percentiles are within about 12% of the true value from
+ * nanoseconds to minutes, in a fixed few kilobytes.
+ *
+ * A snapshot of everything can be read as text or JSON, and startExport writes
+ * one to a file periodically (-Dmancala.metrics.file=path, with
+ * -Dmancala.metrics.period=millis; JSON if the name ends in .json).
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaMetrics.java
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class MancalaMetrics {
+    /**
+     * The timed operations.
+     */
+    public enum Timer {
+        MOVE("model.move"), UNDO("model.undo"), NOTIFY("model.notify"), PAINT("view.paint");
+
+        private final String key;
+
+        Timer(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    private static final long DEFAULT_EXPORT_MILLIS = 5000;
+
+    private static volatile boolean enabled;
+    private static final Histogram[] histograms = new Histogram[Timer.values().length];
+    private static final LongAdder captures = new LongAdder();
+    private static final LongAdder capturedStones = new LongAdder();
+    private static final LongAdder freeTurns = new LongAdder();
+    private static final LongAdder stonesSown = new LongAdder();
+    private static volatile long resetNanos = System.nanoTime();
+    private static ScheduledExecutorService exporter;
+
+    static {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new Histogram();
+        }
+        enabled = Boolean.getBoolean("mancala.metrics");
+        String file = System.getProperty("mancala.metrics.file");
+        if (file != null) {
+            enabled = true;
+            startExport(Paths.get(file), Long.getLong("mancala.metrics.period", DEFAULT_EXPORT_MILLIS));
+        }
+    }
+
+    private MancalaMetrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Switches recording on or off. Values recorded so far are kept.
+     */
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /**
+     * Marks the start of a timed operation.
+     * return the current System.nanoTime, or 0 when recording is off
+     */
+    static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records a timed operation begun with start.
+     * timer the operation
+     * started what start returned; nothing is recorded if it was 0
+     * return the elapsed nanoseconds, 0 if nothing was recorded
+     */
+    static long stop(Timer timer, long started) {
+        if (started == 0) {
+            return 0;
+        }
+        long nanos = System.nanoTime() - started;
+        histograms[timer.ordinal()].record(nanos);
+        return nanos;
+    }
+
+    /**
+     * Records a finished MancalaModel.move: its latency, the capture and free turn
+     * counters, and the matching flight recorder events.
+     * token the undo token of the move
+     * started what start returned when the move began
+     */
+    static void moveApplied(long token, long started) {
+        long nanos = stop(Timer.MOVE, started);
+        if (nanos == 0) {
+            return;
+        }
+        int pit = MancalaModel.tokenPit(token);
+        int stones = MancalaModel.tokenStones(token);
+        stonesSown.add(stones);
+        MoveEvent move = new MoveEvent();
+        if (move.isEnabled()) {
+            move.pit = pit;
+            move.stones = stones;
+            move.capture = MancalaModel.isCapture(token);
+            move.freeTurn = MancalaModel.isFreeTurn(token);
+            move.latency = nanos;
+            move.commit();
+        }
+        if (MancalaModel.isCapture(token)) {
+            int captured = MancalaModel.capturedStones(token);
+            captures.increment();
+            capturedStones.add(captured);
+            CaptureEvent capture = new CaptureEvent();
+            if (capture.isEnabled()) {
+                capture.pit = pit;
+                capture.captured = captured;
+                capture.commit();
+            }
+        }
+        if (MancalaModel.isFreeTurn(token)) {
+            freeTurns.increment();
+            FreeTurnEvent freeTurn = new FreeTurnEvent();
+            if (freeTurn.isEnabled()) {
+                freeTurn.pit = pit;
+                freeTurn.commit();
+            }
+        }
+    }
+
+    /**
+     * Records the time spent calling every model listener once.
+     * started what start returned before the first listener
+     * listeners the number of listeners called
+     */
+    static void listenersNotified(long started, int listeners) {
+        long nanos = stop(Timer.NOTIFY, started);
+        if (nanos == 0) {
+            return;
+        }
+        FanOutEvent event = new FanOutEvent();
+        if (event.isEnabled()) {
+            event.listeners = listeners;
+            event.latency = nanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records one MancalaView.paintComponent call.
+     * started what start returned when painting began
+     * width the width of the area painted
+     * height the height of the area painted
+     */
+    static void repainted(long started, int width, int height) {
+        long nanos = stop(Timer.PAINT, started);
+        if (nanos == 0) {
+            return;
+        }
+        RepaintEvent event = new RepaintEvent();
+        if (event.isEnabled()) {
+            event.width = width;
+            event.height = height;
+            event.latency = nanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * return the histogram of one timed operation
+     */
+    public static Histogram getHistogram(Timer timer) {
+        return histograms[timer.ordinal()];
+    }
+
+    public static long getCaptures() {
+        return captures.sum();
+    }
+
+    public static long getFreeTurns() {
+        return freeTurns.sum();
+    }
+
+    /**
+     * Clears every histogram and counter.
+     */
+    public static void reset() {
+        for (Histogram histogram : histograms) {
+            histogram.reset();
+        }
+        captures.reset();
+        capturedStones.reset();
+        freeTurns.reset();
+        stonesSown.reset();
+        resetNanos = System.nanoTime();
+    }
+
+    /**
+     * return a human-readable snapshot, one line per timer and one for the counters
+     */
+    public static String toText() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format(Locale.ROOT, "mancala metrics (%s, %.1f s)%n", enabled ? "on" : "off",
+                (System.nanoTime() - resetNanos) / 1e9));
+        for (Timer timer : Timer.values()) {
+            Histogram h = histograms[timer.ordinal()];
+            text.append(String.format(Locale.ROOT,
+                    "%-13s %,10d calls  mean %9.1f us  p50 %9.1f  p90 %9.1f  p99 %9.1f  p99.9 %9.1f  max %9.1f us%n",
+                    timer.getKey(), h.getCount(), h.getMean() / 1e3, h.getPercentile(50) / 1e3,
+                    h.getPercentile(90) / 1e3, h.getPercentile(99) / 1e3, h.getPercentile(99.9) / 1e3,
+                    h.getMax() / 1e3));
+        }
+        text.append(String.format(Locale.ROOT, "captures %,d (%,d stones)  free turns %,d  stones sown %,d%n",
+                captures.sum(), capturedStones.sum(), freeTurns.sum(), stonesSown.sum()));
+        return text.toString();
+    }
+
+    /**
+     * return a JSON snapshot; latencies are in nanoseconds
+     */
+    public static String toJson() {
+        StringBuilder json = new StringBuilder("{\n");
+        json.append(String.format(Locale.ROOT, "  \"enabled\": %b,%n  \"uptimeMillis\": %d,%n  \"timers\": {%n",
+                enabled, (System.nanoTime() - resetNanos) / 1000000));
+        Timer[] timers = Timer.values();
+        for (int t = 0; t < timers.length; t++) {
+            Histogram h = histograms[t];
+            json.append(String.format(Locale.ROOT,
+                    "    \"%s\": {\"count\": %d, \"mean\": %.1f, \"p50\": %d, \"p90\": %d, \"p99\": %d, "
+                            + "\"p999\": %d, \"max\": %d}%s%n",
+                    timers[t].getKey(), h.getCount(), h.getMean(), h.getPercentile(50), h.getPercentile(90),
+                    h.getPercentile(99), h.getPercentile(99.9), h.getMax(), t < timers.length - 1 ? "," : ""));
+        }
+        json.append(String.format(Locale.ROOT,
+                "  },%n  \"counters\": {\"captures\": %d, \"capturedStones\": %d, \"freeTurns\": %d, "
+                        + "\"stonesSown\": %d}%n}%n",
+                captures.sum(), capturedStones.sum(), freeTurns.sum(), stonesSown.sum()));
+        return json.toString();
+    }
+
+    /**
+     * Writes a snapshot to a file every period on a daemon thread, replacing the
+     * previous one, until stopExport. The file holds JSON if its name ends in
+     * .json and text otherwise. Replaces any export already running.
+     * file the file to write
+     * periodMillis the time between snapshots
+     */
+    public static synchronized void startExport(Path file, long periodMillis) {
+        stopExport();
+        exporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "mancala-metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        exporter.scheduleAtFixedRate(() -> export(file), periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public static synchronized void stopExport() {
+        if (exporter != null) {
+            exporter.shutdownNow();
+            exporter = null;
+        }
+    }
+
+    /**
+     * Writes one snapshot next to the file and moves it into place, so readers
+     * never see a half-written file.
+     */
+    static void export(Path file) {
+        String snapshot = file.toString().endsWith(".json") ? toJson() : toText();
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.write(tmp, snapshot.getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Could not write metrics to " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * A lock-free log-linear latency histogram in nanoseconds. Values below
+     * SUB_BUCKETS get a bucket each; above that, each power of two is split into
+     * SUB_BUCKETS equal buckets. Values beyond 2^MAX_BITS ns (about 18 minutes)
+     * go into the last bucket.
+     */
+    public static final class Histogram {
+        private static final int SUB_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+        private static final int MAX_BITS = 40;
+        private static final int BUCKETS = (MAX_BITS - SUB_BITS + 1) * SUB_BUCKETS;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        /**
+         * Adds one value.
+         * nanos the value, negative values count as 0
+         */
+        public void record(long nanos) {
+            long value = Math.max(0, nanos);
+            buckets.incrementAndGet(bucketOf(value));
+            count.increment();
+            total.add(value);
+            max.accumulate(value);
+        }
+
+        static int bucketOf(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int bit = 63 - Long.numberOfLeadingZeros(value);
+            if (bit >= MAX_BITS) {
+                return BUCKETS - 1;
+            }
+            int sub = (int) (value >>> (bit - SUB_BITS)) & (SUB_BUCKETS - 1);
+            return (bit - SUB_BITS + 1) * SUB_BUCKETS + sub;
+        }
+
+        /**
+         * return the largest value that falls into a bucket
+         */
+        static long highestValue(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int bit = bucket / SUB_BUCKETS + SUB_BITS - 1;
+            long sub = bucket % SUB_BUCKETS;
+            return ((SUB_BUCKETS + sub + 1) << (bit - SUB_BITS)) - 1;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        /**
+         * return the mean value, 0 if the histogram is empty
+         */
+        public double getMean() {
+            long n = count.sum();
+            return n == 0 ? 0 : (double) total.sum() / n;
+        }
+
+        /**
+         * Returns a percentile, as the upper edge of the bucket it falls in (capped
+         * at the maximum recorded value).
+         * percentile from 0 to 100
+         * return the value, 0 if the histogram is empty
+         */
+        public long getPercentile(double percentile) {
+            long n = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                n += buckets.get(i);
+            }
+            if (n == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(highestValue(i), getMax());
+                }
+            }
+            return getMax();
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+            count.reset();
+            total.reset();
+            max.reset();
+        }
+    }
+}
+
+/**
+ * Flight recorder event for a move made through MancalaModel.move.
+ */
+@Name("mancala.Move")
+@Label("Move Applied")
+@Category("Mancala")
+class MoveEvent extends Event {
+    @Label("Pit")
+    int pit;
+    @Label("Stones Sown")
+    int stones;
+    @Label("Capture")
+    boolean capture;
+    @Label("Free Turn")
+    boolean freeTurn;
+    @Label("Latency")
+    @Description("Time spent in MancalaModel.move, listeners included")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+}
+
+/**
+ * Flight recorder event for a move that captured the opposite pit.
+ */
+@Name("mancala.Capture")
+@Label("Capture")
+@Category("Mancala")
+class CaptureEvent extends Event {
+    @Label("Landing Pit")
+    int pit;
+    @Label("Stones Captured")
+    int captured;
+}
+
+/**
+ * Flight recorder event for a move that ended in the mover's store.
+ */
+@Name("mancala.FreeTurn")
+@Label("Free Turn")
+@Category("Mancala")
+class FreeTurnEvent extends Event {
+    @Label("Pit")
+    int pit;
+}
+
+/**
+ * Flight recorder event for one MancalaView.paintComponent call.
+ */
+@Name("mancala.Repaint")
+@Label("Repaint")
+@Category("Mancala")
+class RepaintEvent extends Event {
+    @Label("Width")
+    int width;
+    @Label("Height")
+    int height;
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+}
+
+/**
+ * Flight recorder event for one round of model listener notifications.
+ */
+@Name("mancala.ListenerFanOut")
+@Label("Listener Fan-out")
+@Category("Mancala")
+class FanOutEvent extends Event {
+    @Label("Listeners")
+    int listeners;
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+}
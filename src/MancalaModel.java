@@ -3,14 +3,27 @@
  * It maintains the pit stone counts, tracks the current player's turn,
  * enforces legal moves, handles captures, free turns, undo functionality,
  * and determines when the game ends and who wins.
+ *
+ * The model has a single writer (normally the Swing event thread). Other threads
+ * must not touch getBoard; they read getSnapshot instead, an immutable copy the
+ * model republishes through an atomic reference whenever it notifies listeners.
+ * Listeners are kept in a copy-on-write array, so they can be attached or
+ * detached from any thread while a notification is running.
+ *
+ * The board defaults to the standard six pits per side, but any number of pits
+ * per side can be chosen for large variants. With n pits per side, slots 0..n-1
+ * are Player 1's pits, n is Player 1's store, n+1..2n are Player 2's pits and
+ * 2n+1 is Player 2's store; the A_STORE and B_STORE constants are the standard
+ * board's. Sowing order and captures come from per-model next-slot and
+ * opposite-slot tables. Components built around the standard board (search,
+ * databases, records, server) check isStandard and reject other boards.
  * @author Kaydon Do, Rongjie Mai, Sarah Hoang
  * @version 1.0
  */
 //MancalaModel.java
-import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
      * Constructs a new MancalaModel with an empty board and no stones distributed.
@@ -18,23 +31,109 @@ import java.util.Arrays;
      */
 public class MancalaModel {
     private boolean player1Turn;
-    private boolean lastTurn;
     private static final int MAX_UNDOS = 3;
     private int undoCount;
     private int lastUndoCount;
     private int[] pits;
-    private int[] lastPitState;
-    private ArrayList<ChangeListener> listeners;
+    // Move history as undo tokens: history[0..ply-1] have been played and
+    // history[ply..historySize-1] were undone and can be redone.
+    private long[] history;
+    private int ply;
+    private int historySize;
+    private boolean undoAllowed;
+    private final int[] sweptPits;
+    private boolean swept;
+    // copy-on-write: replaced, never modified, by attach and detach
+    private volatile ChangeListener[] listeners;
+    private final AtomicReference<MancalaSnapshot> snapshot = new AtomicReference<>();
+    private long snapshotVersion;
+    private final MancalaChangeEvent changeEvent;
+    // Zobrist hash of pits and side to move, kept up to date as stones move.
+    // Keys are laid out as zobrist[stones * slotCount + slot], so the table can grow
+    // without moving keys. Standard boards share one table (see sharedKeys); other
+    // boards keep their own, up to MAX_KEY_STONES per slot, and compute larger keys.
+    private long hash;
+    private long[] zobrist;
+    private int keyStones;
+    private static long[] sharedKeys = new long[0];
+    private static final int MAX_KEY_STONES = 255;
+    // Running stone totals: sideStones[0] for Player 1's pits, [1] for Player 2's, [2] for both stores
+    private final int[] sideStones = new int[3];
+
+    // Board geometry
+    private final int pitsPerSide;
+    private final int slotCount;
+    private final int aStore;
+    private final int bStore;
+    // number of slots a player sows into per lap (every slot except the opponent's store)
+    private final int lap;
+    private final long sideKey;
+    // nextSlot[0][i] is the slot after i in Player 1's sowing order, nextSlot[1][i] in Player 2's
+    private final int[][] nextSlot;
+    // the pit across the board from each pit
+    private final int[] opposite;
+    // which sideStones total each slot counts towards
+    private final int[] sideOf;
 
     public static final int A_STORE = 6;
     public static final int B_STORE = 13;
+    public static final int STANDARD_PITS = 6;
+    public static final int MAX_PITS_PER_SIDE = 1000;
+
+    // Undo token returned by makeMove, packed into a single long:
+    // bits 0-3 pit, 4-23 stones picked up, 24-43 stones captured from the
+    // opposite pit, 44 capture flag, 45 mover was player 1, 46 free turn,
+    // 47-53 the pit's high bits (always 0 on the standard board).
+    private static final int STONE_BITS = 20;
+    private static final long STONE_MASK = (1L << STONE_BITS) - 1;
+    private static final int CAPTURED_SHIFT = 4 + STONE_BITS;
+    private static final long CAPTURE_FLAG = 1L << 44;
+    private static final long PLAYER1_FLAG = 1L << 45;
+    private static final long FREE_TURN_FLAG = 1L << 46;
+    private static final int PIT_HIGH_SHIFT = 47;
+    // Number of slots a player sows into per lap on the standard board
+    private static final int LAP = 13;
 
 
     public MancalaModel () {
+        this(STANDARD_PITS);
+    }
+
+    /**
+     * Constructs a model for a board with the given number of pits per side.
+     * pitsPerSide from 1 to MAX_PITS_PER_SIDE; STANDARD_PITS for the usual game
+     */
+    public MancalaModel(int pitsPerSide) {
+        if (pitsPerSide < 1 || pitsPerSide > MAX_PITS_PER_SIDE) {
+            throw new IllegalArgumentException("pits per side must be between 1 and " + MAX_PITS_PER_SIDE
+                    + ": " + pitsPerSide);
+        }
+        this.pitsPerSide = pitsPerSide;
+        slotCount = 2 * pitsPerSide + 2;
+        aStore = pitsPerSide;
+        bStore = slotCount - 1;
+        lap = slotCount - 1;
+        sideKey = zobristKey(slotCount, 0);
+        nextSlot = new int[2][slotCount];
+        opposite = new int[slotCount];
+        sideOf = new int[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            int next = i == bStore ? 0 : i + 1;
+            nextSlot[0][i] = next == bStore ? 0 : next;
+            nextSlot[1][i] = next == aStore ? next + 1 : next;
+            opposite[i] = i == aStore || i == bStore ? i : 2 * pitsPerSide - i;
+            sideOf[i] = i < aStore ? 0 : i == aStore || i == bStore ? 2 : 1;
+        }
         player1Turn = true;
         undoCount = 0;
-        pits = new int[14];
-        listeners = new ArrayList<>();
+        pits = new int[slotCount];
+        history = new long[64];
+        sweptPits = new int[slotCount];
+        listeners = new ChangeListener[0];
+        changeEvent = new MancalaChangeEvent(this);
+        ensureKeys(0);
+        resync();
+        publishSnapshot(MancalaChangeEvent.Kind.NEW_GAME, -1);
     }
     
    /**
@@ -43,105 +142,567 @@ public class MancalaModel {
      * stones the number of stones to place in each pit (typically 3 or 4)
      */
     public void newGame(int stones) {
-        pits[6] = 0; //Player 1 Mancala 0 stones
-        pits[13] = 0; // Player 2 Mancala 0 stones
-        for (int i = 0; i < 6; i++) {
+        pits[aStore] = 0; //Player 1 Mancala 0 stones
+        pits[bStore] = 0; // Player 2 Mancala 0 stones
+        for (int i = 0; i < aStore; i++) {
             pits[i] = stones; // add stones to Player 1 pit
         }
-        for (int i = 7; i < 13; i++) {
+        for (int i = aStore + 1; i < bStore; i++) {
             pits[i] = stones; // add stones to Player 2 pit
         }
         player1Turn = true;
+        clearHistory();
+        ensureKeys(2 * pitsPerSide * stones);
+        resync();
+        notifyListeners(MancalaChangeEvent.Kind.NEW_GAME, MancalaChangeEvent.ALL_SLOTS, -1, true);
+    }
+
+    /**
+     * Sets up an arbitrary position, e.g. a copy of another model's board for analysis.
+     * Clears turn and undo state the same way newGame does.
+     * board the getSlotCount() slot counts in getBoard order
+     * player1Turn true if player 1 is to move
+     */
+    public void loadPosition(int[] board, boolean player1Turn) {
+        System.arraycopy(board, 0, pits, 0, slotCount);
+        this.player1Turn = player1Turn;
+        int total = 0;
+        for (int i = 0; i < slotCount; i++) {
+            total += board[i];
+        }
+        ensureKeys(total);
+        resync();
+        clearHistory();
+        notifyListeners(MancalaChangeEvent.Kind.NEW_GAME, MancalaChangeEvent.ALL_SLOTS, -1, true);
+    }
+
+    private void clearHistory() {
+        ply = 0;
+        historySize = 0;
+        swept = false;
         undoCount = 0;
         lastUndoCount = 0;
-        lastPitState = null;
-        lastTurn = false;
-        notifyListeners();
+        undoAllowed = false;
     }
 
     /**
      * Makes a move from the selected pit.
+     * This is the Swing path: it records the move in the history, applies the
+     * undo policy and notifies listeners. The rules themselves live in makeMove.
+     * Any moves that were undone and not yet redone are dropped.
      * selected index of selected pit
      */
     public void move(int selected) {
-        lastTurn = player1Turn;
+        long started = MancalaMetrics.start();
         lastUndoCount = undoCount;
-        lastPitState = pits.clone(); //saves the state of game before move is made
+        unsweep();
+        long token = makeMove(selected);
+        if (ply == history.length) {
+            history = Arrays.copyOf(history, 2 * ply);
+        }
+        history[ply++] = token;
+        historySize = ply;
+        undoAllowed = true;
+        if (!isFreeTurn(token)) {
+            undoCount = 0;
+        }
+        notifyListeners(MancalaChangeEvent.Kind.MOVE, slotsChanged(token), token, !isFreeTurn(token));
+        if (started != 0) {
+            MancalaMetrics.moveApplied(token, started);
+        }
+    }
+
+    /**
+     * Takes back the last move in the history, with no limit on how many times.
+     * Unlike undo this ignores the per-turn undo policy, and it resets that policy.
+     * return true if a move was taken back; false at the start of the game
+     */
+    public boolean undoPly() {
+        if (ply == 0) {
+            return false;
+        }
+        seekPly(ply - 1);
+        return true;
+    }
+
+    /**
+     * Replays the next move that was taken back.
+     * return true if a move was replayed; false if there is nothing to redo
+     */
+    public boolean redoPly() {
+        if (ply == historySize) {
+            return false;
+        }
+        seekPly(ply + 1);
+        return true;
+    }
+
+    /**
+     * Jumps to the position after the given number of moves of the history,
+     * unmaking or replaying one move per ply in between without allocating.
+     * Resets the per-turn undo policy.
+     * target the ply to go to, from 0 to getHistorySize()
+     */
+    public void seekPly(int target) {
+        if (target < 0 || target > historySize) {
+            throw new IllegalArgumentException("ply " + target + " outside 0.." + historySize);
+        }
+        int changed = unsweep() ? MancalaChangeEvent.ALL_SLOTS : 0;
+        boolean wasPlayer1 = player1Turn;
+        while (ply > target) {
+            long token = history[--ply];
+            unmakeMove(token);
+            changed |= slotsChanged(token);
+        }
+        while (ply < target) {
+            long token = makeMove(tokenPit(history[ply++]));
+            changed |= slotsChanged(token);
+        }
+        undoCount = 0;
+        lastUndoCount = 0;
+        undoAllowed = false;
+        notifyListeners(MancalaChangeEvent.Kind.SEEK, changed, -1, player1Turn != wasPlayer1);
+    }
+
+    /**
+     * return the number of moves played to reach the current position
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * return the number of moves in the history, including ones that can be redone
+     */
+    public int getHistorySize() {
+        return historySize;
+    }
+
+    /**
+     * Returns the undo token of a move in the history.
+     * index the move's position in the history, from 0 to getHistorySize() - 1
+     * return the token, as makeMove returned it
+     */
+    public long getHistoryMove(int index) {
+        if (index < 0 || index >= historySize) {
+            throw new IndexOutOfBoundsException("move " + index + " outside 0.." + (historySize - 1));
+        }
+        return history[index];
+    }
+
+    /**
+     * Puts back the board getWinner swept, so the history can be walked again.
+     * return true if the board had been swept
+     */
+    private boolean unsweep() {
+        if (swept) {
+            System.arraycopy(sweptPits, 0, pits, 0, slotCount);
+            swept = false;
+            resync();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Applies a move from the selected pit without recording history or notifying
+     * listeners, and without allocating. Sowing is done in bulk: every slot the mover
+     * sows into gets one stone per full lap (13 slots on the standard board), then the
+     * remainder is dropped one by one. Captures and free turns follow the same rules as move.
+     * The pit must be a legal pick for the player to move (see isLegalPick).
+     * selected index of selected pit
+     * return an undo token to pass to unmakeMove
+     */
+    public long makeMove(int selected) {
+        boolean player1 = player1Turn;
+        int skip = player1 ? bStore : aStore;
+        int[] next = nextSlot[player1 ? 0 : 1];
         int count = pits[selected];
-        pits[selected] = 0;
-        int index = selected;
-        for(int i = count; i > 0; i--) {
-            index = (index +1) % 14;
-            if((player1Turn && index == 13) || (!player1Turn && index == 6)) {
-                continue;
+        setPit(selected, 0);
+
+        int laps = count / lap;
+        if (laps > 0) {
+            for (int i = 0; i < slotCount; i++) {
+                if (i != skip) {
+                    setPit(i, pits[i] + laps);
+                }
             }
-            //adds stone to pit if not opponent mancala
-            pits[index]++;
-            count--;
+        }
+        int index = selected;
+        for (int r = count - laps * lap; r > 0; r--) {
+            index = next[index];
+            setPit(index, pits[index] + 1);
+        }
+
+        long token = (selected & 0xF) | ((long) (selected >>> 4) << PIT_HIGH_SHIFT) | ((long) count << 4);
+        if (player1) {
+            token |= PLAYER1_FLAG;
         }
         // Captures opposite side if lands on empty pit on player side
-        if(player1Turn && index >= 0 && index <= 5 && pits[index]==1 && pits[12-index] > 0) {
-            pits[6] += pits[12-index] + 1;
-            pits[index] = 0;
-            pits[12-index] = 0;
-        } else if(!player1Turn && index >= 7 && index <= 12 && pits[index]==1 && pits[12-index] > 0) {
-            pits[13] += pits[12-index] + 1;
-            pits[index] = 0;
-            pits[12-index] = 0;
+        int ownStore = player1 ? aStore : bStore;
+        int across = opposite[index];
+        if (isOwnPit(index, player1) && pits[index] == 1 && pits[across] > 0) {
+            int captured = pits[across];
+            setPit(ownStore, pits[ownStore] + captured + 1);
+            setPit(index, 0);
+            setPit(across, 0);
+            token |= CAPTURE_FLAG | ((long) captured << CAPTURED_SHIFT);
         }
         // Free turn if last stone is in player Mancala otherwise change turns
-        if((player1Turn && index == 6) || (!player1Turn && index ==  13)) {
-            notifyListeners();
+        if (index == ownStore) {
+            token |= FREE_TURN_FLAG;
         } else {
-            undoCount = 0;
-            player1Turn = !player1Turn;
-            notifyListeners();
+            player1Turn = !player1;
+            hash ^= sideKey;
         }
+        return token;
     }
+
     /**
-     * Checks whether the game is over by determining if one player's side
-     * of the board is completely empty.
-     * return true if either side has no stones remaining; false otherwise
+     * Reverts a move applied by makeMove. Moves must be unmade in the reverse order
+     * they were made. Does not notify listeners and does not allocate.
+     * token the undo token returned by makeMove
      */
+    public void unmakeMove(long token) {
+        int selected = tokenPit(token);
+        int count = tokenStones(token);
+        boolean player1 = (token & PLAYER1_FLAG) != 0;
+        int skip = player1 ? bStore : aStore;
+        int[] next = nextSlot[player1 ? 0 : 1];
+        int laps = count / lap;
+        int rem = count - laps * lap;
 
-    public boolean isGameOver() {
-        boolean player1Side = true;
-        boolean player2Side = true;
-        // If one side is not empty, the game continues
-        for(int i = 0; i < 6; i++) {
-            if(pits[i] != 0) {
-                player1Side = false;
+        if ((token & CAPTURE_FLAG) != 0) {
+            int index = getLandingSlot(selected, count, player1);
+            int captured = capturedStones(token);
+            int ownStore = player1 ? aStore : bStore;
+            setPit(ownStore, pits[ownStore] - captured - 1);
+            setPit(index, 1);
+            setPit(opposite[index], captured);
+        }
+        int index = selected;
+        for (int r = rem; r > 0; r--) {
+            index = next[index];
+            setPit(index, pits[index] - 1);
+        }
+        if (laps > 0) {
+            for (int i = 0; i < slotCount; i++) {
+                if (i != skip) {
+                    setPit(i, pits[i] - laps);
+                }
+            }
+        }
+        setPit(selected, count);
+        if (player1Turn != player1) {
+            player1Turn = player1;
+            hash ^= sideKey;
+        }
+    }
+
+    /**
+     * Sets a slot's stone count and updates the Zobrist hash and side totals to match.
+     */
+    private void setPit(int slot, int stones) {
+        hash ^= key(slot, pits[slot]) ^ key(slot, stones);
+        sideStones[sideOf[slot]] += stones - pits[slot];
+        pits[slot] = stones;
+    }
+
+    /**
+     * return the Zobrist key for a slot holding the given number of stones
+     */
+    private long key(int slot, int stones) {
+        return stones < keyStones ? zobrist[stones * slotCount + slot] : zobristKey(slot, stones);
+    }
+
+    /**
+     * Makes sure there is a Zobrist key for every count a slot can hold, or on
+     * boards other than the standard one, for up to MAX_KEY_STONES.
+     * totalStones the number of stones on the board
+     */
+    private void ensureKeys(int totalStones) {
+        if (isStandard()) {
+            int length = 14 * (totalStones + 1);
+            if (zobrist == null || zobrist.length < length) {
+                zobrist = sharedKeys(length);
+            }
+        } else {
+            int stones = Math.min(totalStones, MAX_KEY_STONES) + 1;
+            if (zobrist == null || keyStones < stones) {
+                zobrist = new long[slotCount * stones];
+                for (int i = 0; i < zobrist.length; i++) {
+                    zobrist[i] = zobristKey(i % slotCount, i / slotCount);
+                }
             }
         }
-        for(int i = 7; i < 13; i++) {
-            if(pits[i] != 0) {
-                player2Side = false;
+        keyStones = zobrist.length / slotCount;
+    }
+
+    /**
+     * Returns the key table shared by all models, grown to at least the given length.
+     * Growing copies the table, so models still holding the old one keep valid keys.
+     */
+    private static synchronized long[] sharedKeys(int length) {
+        long[] keys = sharedKeys;
+        if (keys.length < length) {
+            int old = keys.length;
+            keys = Arrays.copyOf(keys, Math.max(length, 2 * old));
+            for (int i = old; i < keys.length; i++) {
+                keys[i] = zobristKey(i % 14, i / 14);
             }
+            sharedKeys = keys;
+        }
+        return keys;
+    }
+
+    /**
+     * Recomputes the Zobrist hash and side totals from scratch after the board
+     * was set wholesale.
+     */
+    private void resync() {
+        long h = player1Turn ? 0 : sideKey;
+        sideStones[0] = sideStones[1] = sideStones[2] = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            h ^= key(slot, pits[slot]);
+            sideStones[sideOf[slot]] += pits[slot];
+        }
+        hash = h;
+    }
+
+    /**
+     * Returns the Zobrist key for a slot holding the given number of stones.
+     * Keys are a fixed function of slot and count (a SplitMix64 mix), so every
+     * model hashes the same position to the same value.
+     */
+    static long zobristKey(int slot, int stones) {
+        long z = ((long) slot << 32 | stones) * 0x9E3779B97F4A7C15L + 0x5DEECE66DL;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Returns the Zobrist hash of the current position (pits, stores and side to move).
+     * return the 64-bit position hash
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Returns the slot after index in sowing order, skipping the given store.
+     */
+    static int nextSlot(int index, int skip) {
+        int next = index == 13 ? 0 : index + 1;
+        return next == skip ? (next == 13 ? 0 : next + 1) : next;
+    }
+
+    /**
+     * Returns the slot the last of count stones sown from selected lands in.
+     * Player 1 sows through slots 0..12; player 2 through 7..13 then 0..5.
+     */
+    static int landingSlot(int selected, int count, boolean player1) {
+        if (player1) {
+            return (selected + count) % LAP;
+        }
+        int pos = (selected >= 7 ? selected - 7 : selected + 7) + count;
+        pos %= LAP;
+        return pos < 7 ? pos + 7 : pos - 7;
+    }
+
+    /**
+     * Returns the slot the last of count stones sown from selected lands in, on
+     * this model's board. Player 1 sows through slots 0..2n; player 2 through
+     * n+1..2n+1 then 0..n-1.
+     */
+    int getLandingSlot(int selected, int count, boolean player1) {
+        int first = player1 ? 0 : aStore + 1;
+        int pos = selected - first;
+        if (pos < 0) {
+            pos += slotCount;
+        }
+        int slot = (pos + count) % lap + first;
+        return slot >= slotCount ? slot - slotCount : slot;
+    }
+
+    private boolean isOwnPit(int index, boolean player1) {
+        return player1 ? index < aStore : (index > aStore && index < bStore);
+    }
+
+    /**
+     * return the number of pits on each side, STANDARD_PITS for the usual board
+     */
+    public int getPitsPerSide() {
+        return pitsPerSide;
+    }
+
+    /**
+     * return the number of slots (pits and stores), the length of getBoard
+     */
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    /**
+     * return true for the standard board of six pits per side
+     */
+    public boolean isStandard() {
+        return pitsPerSide == STANDARD_PITS;
+    }
+
+    /**
+     * return the slot of a player's store
+     */
+    public int getStore(boolean player1) {
+        return player1 ? aStore : bStore;
+    }
+
+    /**
+     * return the pit across the board from the given pit
+     */
+    public int getOpposite(int pit) {
+        return opposite[pit];
+    }
+
+    /**
+     * Returns the slot after index in a player's sowing order, which skips the
+     * opponent's store.
+     */
+    public int getNextSlot(int index, boolean player1) {
+        return nextSlot[player1 ? 0 : 1][index];
+    }
+
+    /**
+     * Throws if this model is not the standard board, for components that only
+     * handle the standard board.
+     * user the component's name, for the message
+     */
+    void requireStandard(String user) {
+        if (!isStandard()) {
+            throw new IllegalArgumentException(user + " supports only the standard board of " + STANDARD_PITS
+                    + " pits per side, not " + pitsPerSide);
+        }
+    }
+
+    /**
+     * Returns the slots a move changes (or restores when unmade) on the standard
+     * board, as a bitmask with bit i set for getBoard()[i].
+     * token the move's undo token
+     * return the changed-slot mask
+     */
+    public static int changedSlots(long token) {
+        int selected = tokenPit(token);
+        int count = tokenStones(token);
+        boolean player1 = (token & PLAYER1_FLAG) != 0;
+        int skip = player1 ? B_STORE : A_STORE;
+        if (count >= LAP) {
+            return MancalaChangeEvent.ALL_SLOTS & ~(1 << skip);
+        }
+        int mask = 1 << selected;
+        int index = selected;
+        for (int r = count; r > 0; r--) {
+            index = nextSlot(index, skip);
+            mask |= 1 << index;
+        }
+        if (isCapture(token)) {
+            mask |= (1 << (12 - index)) | (1 << (player1 ? A_STORE : B_STORE));
         }
-        return player1Side||player2Side;
+        return mask;
+    }
+
+    /**
+     * Returns the slots a move changed for a change event: the exact mask on the
+     * standard board, and ALL_SLOTS on larger boards, whose slots do not fit a mask.
+     */
+    private int slotsChanged(long token) {
+        return isStandard() ? changedSlots(token) : MancalaChangeEvent.ALL_SLOTS;
+    }
+
+    /**
+     * return the pit a move token was played from
+     */
+    public static int tokenPit(long token) {
+        return (int) (token & 0xF) | ((int) (token >>> PIT_HIGH_SHIFT) & 0x7F) << 4;
+    }
+
+    /**
+     * return the number of stones picked up by a move token
+     */
+    public static int tokenStones(long token) {
+        return (int) ((token >>> 4) & STONE_MASK);
+    }
+
+    /**
+     * return the number of stones taken from the opposite pit, 0 if no capture
+     */
+    public static int capturedStones(long token) {
+        return (int) ((token >>> CAPTURED_SHIFT) & STONE_MASK);
+    }
+
+    /**
+     * return true if the move token captured
+     */
+    public static boolean isCapture(long token) {
+        return (token & CAPTURE_FLAG) != 0;
+    }
+
+    /**
+     * return true if the move token earned its player a free turn
+     */
+    public static boolean isFreeTurn(long token) {
+        return (token & FREE_TURN_FLAG) != 0;
+    }
+
+    /**
+     * Checks whether the game is over by determining if one player's side
+     * of the board is completely empty. Uses the running side totals, so this is O(1).
+     * return true if either side has no stones remaining; false otherwise
+     */
+    public boolean isGameOver() {
+        return sideStones[0] == 0 || sideStones[1] == 0;
+    }
+
+    /**
+     * Returns the number of stones in a player's pits (not counting the store).
+     * player1 true for Player 1's pits, false for Player 2's
+     * return the stones on that side
+     */
+    public int getStonesOnSide(boolean player1) {
+        return sideStones[player1 ? 0 : 1];
+    }
+
+    /**
+     * Returns a player's score as it would stand after the end-of-game sweep: the
+     * store plus the stones still on that player's side. Unlike getWinner this does
+     * not change the board, and it is O(1).
+     * player1 true for Player 1, false for Player 2
+     * return the player's final score if the game ended now
+     */
+    public int getFinalScore(boolean player1) {
+        return player1 ? pits[aStore] + sideStones[0] : pits[bStore] + sideStones[1];
     }
  /**
      * Computes the final score, determines the winner, and clears the pits.
      * return a string describing the winning player or a draw
      */
     public String getWinner() {
-        //adds up all stones on player 1 side
-        for (int i = 0; i < 6; i++) {
-            pits[6] += pits[i];
-        }
-        // adds up all stones on player 2 side
-        for (int i = 7; i < 13; i++) {
-            pits[13] += pits[i];
-        }
-        // empties all pits
-        for (int i = 0; i < 14; i++) {
-            if (i != 6 && i != 13) {
-                pits[i] = 0;
-            }
+        // keep the unswept board so an undo can still go back before the last move
+        if (!swept) {
+            System.arraycopy(pits, 0, sweptPits, 0, slotCount);
+            swept = true;
+        }
+        // moves each side's stones into its own store
+        int scoreA = getFinalScore(true);
+        int scoreB = getFinalScore(false);
+        for (int i = 0; i < pitsPerSide; i++) {
+            setPit(i, 0);
+            setPit(i + aStore + 1, 0);
         }
-        if (pits[6] > pits[13]) {
+        setPit(aStore, scoreA);
+        setPit(bStore, scoreB);
+        if (scoreA > scoreB) {
             return "Player 1 is the winner";
-        } else if (pits[13] > pits[6]) {
+        } else if (scoreB > scoreA) {
             return "Player 2 is the winner";
         } else {
             return "It is a draw";
@@ -154,7 +715,7 @@ public class MancalaModel {
      * return true if the pick is legal; false otherwise
      */
     public Boolean isLegalPick(int index) {
-        if ((pits[index] == 0) || (player1Turn && index > 5) || (!player1Turn && (index < 7 || index > 12))) {
+        if ((pits[index] == 0) || (player1Turn && index >= aStore) || (!player1Turn && (index <= aStore || index >= bStore))) {
             return false;
         }
         return true;
@@ -163,15 +724,22 @@ public class MancalaModel {
     /**
      * Attempts to undo the previous move if the player has undos remaining.
      * Undo restores the board state, the active player, and the undo counter.
+     * This is the game's undo rule (at most MAX_UNDOS per turn, never twice in a
+     * row) on top of the move history; see undoPly for unrestricted history access.
      * return true if the undo was successful; false otherwise
      */
     public boolean undo() {
-        if ((lastUndoCount < MAX_UNDOS) && (!Arrays.equals(pits, lastPitState)) && (lastPitState != null)) {
+        if ((lastUndoCount < MAX_UNDOS) && undoAllowed && ply > 0) {
+            long started = MancalaMetrics.start();
+            boolean wasSwept = unsweep();
+            long token = history[--ply];
+            unmakeMove(token); // restores the active player too
+            undoAllowed = false; // cannot undo twice in a row
             undoCount = lastUndoCount;
-            player1Turn = lastTurn;
-            pits = lastPitState.clone();
             undoCount++;
-            notifyListeners();
+            notifyListeners(MancalaChangeEvent.Kind.UNDO,
+                    wasSwept ? MancalaChangeEvent.ALL_SLOTS : slotsChanged(token), token, !isFreeTurn(token));
+            MancalaMetrics.stop(MancalaMetrics.Timer.UNDO, started);
             return true;
         }
         return false;
@@ -209,16 +777,61 @@ public class MancalaModel {
     }
 
 
+    /**
+     * Returns the position as of the last notification. Safe to call from any
+     * thread; it never blocks and the snapshot never changes afterwards.
+     * return the latest published snapshot
+     */
+    public MancalaSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
     // Observer pattern methods
-    public void attach(ChangeListener listener) {
-        listeners.add(listener);
+    public synchronized void attach(ChangeListener listener) {
+        ChangeListener[] old = listeners;
+        ChangeListener[] grown = Arrays.copyOf(old, old.length + 1);
+        grown[old.length] = listener;
+        listeners = grown;
+    }
+
+    /**
+     * Removes a listener added with attach. A notification already running may
+     * still reach it once.
+     * return true if the listener was registered
+     */
+    public synchronized boolean detach(ChangeListener listener) {
+        ChangeListener[] old = listeners;
+        for (int i = 0; i < old.length; i++) {
+            if (old[i] == listener) {
+                ChangeListener[] shrunk = new ChangeListener[old.length - 1];
+                System.arraycopy(old, 0, shrunk, 0, i);
+                System.arraycopy(old, i + 1, shrunk, i, old.length - i - 1);
+                listeners = shrunk;
+                return true;
+            }
+        }
+        return false;
     }
+
     /**
-     * Notifies all registered ChangeListeners that the model state has changed.
+     * Publishes a snapshot of the current position, then notifies all registered
+     * ChangeListeners that the model state has changed. Every listener gets the
+     * same reused MancalaChangeEvent describing the change.
      */
-    private void notifyListeners(){
-        for (ChangeListener listener : listeners) {
-            listener.stateChanged(new ChangeEvent(this));
+    private void notifyListeners(MancalaChangeEvent.Kind kind, int changedSlots, long move, boolean turnSwitched){
+        publishSnapshot(kind, move);
+        changeEvent.set(kind, changedSlots, move, turnSwitched);
+        long started = MancalaMetrics.start();
+        ChangeListener[] current = listeners;
+        for (ChangeListener listener : current) {
+            listener.stateChanged(changeEvent);
         }
+        if (started != 0) {
+            MancalaMetrics.listenersNotified(started, current.length);
+        }
+    }
+
+    private void publishSnapshot(MancalaChangeEvent.Kind kind, long move) {
+        snapshot.set(new MancalaSnapshot(snapshotVersion++, pits, player1Turn, ply, hash, kind, move));
     }
 }
@@ -0,0 +1,331 @@
+/**
+ * The MancalaOpeningBook class holds deep search results for the opening
+ * positions of the two standard starts (3 and 4 stones per pit, the choices
+ * MancalaInitDialog offers), so the engine does not analyse the same early
+ * positions again in every game.
+ *
+ * The book is built offline. Searching every position of the first plies is out
+ * of reach (the starts reach 23.6 million distinct positions within 10 plies), so
+ * the builder follows book lines instead: once for each seat, the engine's side
+ * plays only its best move while the opponent tries every move. That keeps
+ * about six branches per full move. The positions of each ply are
+ * searched in parallel, each worker with its own MancalaSearch.
+ *
+ * File layout: a 32-byte header ("MOBK", version, entry count, plies, depth),
+ * then the entries' Zobrist keys (see MancalaModel.getHash) sorted ascending as
+ * 8-byte longs, then their packed values as 4-byte ints in the same order. At
+ * runtime the file is memory-mapped read-only and a lookup binary-searches the
+ * key array, so the book costs almost no heap however big it is.
+ * Usage: java MancalaOpeningBook [-plies n] [-depth n] [-threads n] file
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaOpeningBook.java
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MancalaOpeningBook {
+    private static final int MAGIC = 0x4D4F424B; // "MOBK"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int[] STONES = {3, 4};
+    // Value layout: bits 0-15 score, 16-19 best pit, 20-27 depth, 28 valid
+    private static final int VALID = 1 << 28;
+
+    private final MappedByteBuffer map;
+    private final int count;
+    private final int plies;
+    private final int depth;
+
+    private MancalaOpeningBook(MappedByteBuffer map, int count, int plies, int depth) {
+        this.map = map;
+        this.count = count;
+        this.plies = plies;
+        this.depth = depth;
+    }
+
+    /**
+     * Opens a book file read-only.
+     * file the book written by build
+     * return the book
+     */
+    public static MancalaOpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (map.capacity() < HEADER_BYTES || map.getInt(0) != MAGIC) {
+                throw new IOException("not an opening book: " + file);
+            }
+            int version = map.getInt(4);
+            if (version != VERSION) {
+                throw new IOException("unsupported opening book version " + version);
+            }
+            int count = map.getInt(8);
+            if (map.capacity() < HEADER_BYTES + 12L * count) {
+                throw new IOException("truncated opening book: " + file);
+            }
+            return new MancalaOpeningBook(map, count, map.getInt(12), map.getInt(16));
+        }
+    }
+
+    /**
+     * Opens a book if the file exists and is valid.
+     * file the book file
+     * return the book, or null
+     */
+    public static MancalaOpeningBook openIfPresent(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return open(file);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Looks up a position. Safe to call from several threads.
+     * hash the position's Zobrist hash
+     * return the packed value, or 0 if the position is not in the book
+     */
+    public int probe(long hash) {
+        int lo = 0;
+        int hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long key = map.getLong(HEADER_BYTES + 8 * mid);
+            if (key < hash) {
+                lo = mid + 1;
+            } else if (key > hash) {
+                hi = mid - 1;
+            } else {
+                return map.getInt(HEADER_BYTES + 8 * count + 4 * mid);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Looks up the model's current position.
+     * model the game
+     * return the packed value, or 0 if the position is not in the book
+     */
+    public int probe(MancalaModel model) {
+        model.requireStandard("MancalaOpeningBook");
+        return probe(model.getHash());
+    }
+
+    public static int score(int value) { return (short) value; }
+    public static int bestPit(int value) { return value >>> 16 & 0xF; }
+    public static int depth(int value) { return value >>> 20 & 0xFF; }
+
+    static int pack(int score, int bestPit, int depth) {
+        return (score & 0xFFFF) | bestPit << 16 | Math.min(depth, 255) << 20 | VALID;
+    }
+
+    public int getEntryCount() { return count; }
+    public int getPlies() { return plies; }
+    public int getDepth() { return depth; }
+
+    /**
+     * Builds a book and writes it to a file.
+     * plies how many plies from the starts the book covers
+     * depth the search depth for each position
+     * threads the number of search threads
+     * file the book file to write
+     * return the book, opened from the file
+     */
+    public static MancalaOpeningBook build(int plies, int depth, int threads, Path file)
+            throws IOException, InterruptedException {
+        // position hash -> value, and -> the seats (bit 0: player 1, bit 1: player 2)
+        // whose book lines already went through it
+        Map<Long, Integer> values = new HashMap<>();
+        Map<Long, Integer> seats = new HashMap<>();
+        MancalaModel model = new MancalaModel();
+        List<int[]> frontier = new ArrayList<>();
+        for (int stones : STONES) {
+            model.newGame(stones);
+            frontier.add(position(model, 3));
+        }
+        for (int ply = 0; ply <= plies && !frontier.isEmpty(); ply++) {
+            long start = System.nanoTime();
+            int searched = searchAll(frontier, values, depth, threads);
+            List<int[]> next = new ArrayList<>();
+            for (int[] position : frontier) {
+                model.loadPosition(Arrays.copyOf(position, 14), position[14] == 1);
+                int best = bestPit(values.get(model.getHash()));
+                if (ply < plies) {
+                    expand(model, position[15], best, seats, next);
+                }
+            }
+            System.out.printf("ply %d: %,d positions (%,d searched) in %.1f s, book %,d%n",
+                    ply, frontier.size(), searched, (System.nanoTime() - start) / 1e9, values.size());
+            frontier = next;
+        }
+        write(values, plies, depth, file);
+        return open(file);
+    }
+
+    /**
+     * return the model's position as its 14 slots, the side to move (1 = player 1)
+     * and the seats whose book lines reach it
+     */
+    private static int[] position(MancalaModel model, int seatMask) {
+        int[] position = Arrays.copyOf(model.getBoard(), 16);
+        position[14] = model.isPlayer1Turn() ? 1 : 0;
+        position[15] = seatMask;
+        return position;
+    }
+
+    /**
+     * Adds the children of the model's position that the book lines of the given
+     * seats follow: only the best move when that seat is to move, every move otherwise.
+     * A child goes to the next ply only for seats that have not been through it yet.
+     */
+    private static void expand(MancalaModel model, int seatMask, int best,
+                               Map<Long, Integer> seats, List<int[]> next) {
+        boolean player1 = model.isPlayer1Turn();
+        int moverSeat = player1 ? 1 : 2;
+        int first = player1 ? 0 : 7;
+        for (int pit = first; pit < first + 6; pit++) {
+            if (model.getBoard()[pit] == 0) {
+                continue;
+            }
+            int mask = pit == best ? seatMask : seatMask & ~moverSeat;
+            if (mask == 0) {
+                continue;
+            }
+            long token = model.makeMove(pit);
+            if (!model.isGameOver()) {
+                long hash = model.getHash();
+                int old = seats.getOrDefault(hash, 0);
+                if ((mask & ~old) != 0) {
+                    seats.put(hash, old | mask);
+                    next.add(position(model, mask & ~old));
+                }
+            }
+            model.unmakeMove(token);
+        }
+    }
+
+    /**
+     * Searches the positions not in the book yet, spread over a thread pool.
+     * return the number of positions searched
+     */
+    private static int searchAll(List<int[]> frontier, Map<Long, Integer> values, int depth, int threads)
+            throws InterruptedException {
+        MancalaModel model = new MancalaModel();
+        List<int[]> todo = new ArrayList<>();
+        List<Long> keys = new ArrayList<>();
+        for (int[] position : frontier) {
+            model.loadPosition(Arrays.copyOf(position, 14), position[14] == 1);
+            long hash = model.getHash();
+            if (!values.containsKey(hash)) {
+                values.put(hash, 0); // claimed, so a repeat in this ply is searched once
+                todo.add(position);
+                keys.add(hash);
+            }
+        }
+        int[] results = new int[todo.size()];
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                MancalaSearch search = new MancalaSearch(new MancalaTranspositionTable(16));
+                int i;
+                while ((i = next.getAndIncrement()) < results.length) {
+                    int[] position = todo.get(i);
+                    MancalaSearch.Result result = search.search(Arrays.copyOf(position, 14),
+                            position[14] == 1, Integer.MAX_VALUE, depth);
+                    results[i] = pack(result.getScore(), result.getBestPit(), result.getDepth());
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        for (int i = 0; i < results.length; i++) {
+            values.put(keys.get(i), results[i]);
+        }
+        return results.length;
+    }
+
+    private static void write(Map<Long, Integer> values, int plies, int depth, Path file) throws IOException {
+        long[] keys = new long[values.size()];
+        int n = 0;
+        for (long key : values.keySet()) {
+            keys[n++] = key;
+        }
+        Arrays.sort(keys);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 12 * n);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(plies).putInt(depth);
+        buffer.position(HEADER_BYTES);
+        for (long key : keys) {
+            buffer.putLong(key);
+        }
+        for (long key : keys) {
+            buffer.putInt(values.get(key));
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int plies = 12;
+        int depth = 14;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path file = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-plies": plies = Integer.parseInt(args[++i]); break;
+                case "-depth": depth = Integer.parseInt(args[++i]); break;
+                case "-threads": threads = Integer.parseInt(args[++i]); break;
+                default: file = Paths.get(args[i]);
+            }
+        }
+        if (file == null) {
+            System.err.println("Usage: java MancalaOpeningBook [-plies n] [-depth n] [-threads n] file");
+            System.exit(1);
+        }
+        long start = System.nanoTime();
+        MancalaOpeningBook book = build(plies, depth, threads, file);
+        System.out.printf("Built %,d positions (%d plies, depth %d) in %.1f s -> %s (%,d bytes)%n",
+                book.getEntryCount(), plies, depth, (System.nanoTime() - start) / 1e9, file, Files.size(file));
+
+        // lookup speed over every entry's own key
+        long[] keys = new long[book.count];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = book.map.getLong(HEADER_BYTES + 8 * i);
+        }
+        long sum = 0;
+        for (int round = 0; round < 5; round++) {
+            long t = System.nanoTime();
+            for (long key : keys) {
+                sum += book.probe(key);
+            }
+            if (round == 4) {
+                System.out.printf("lookup: %.0f ns average (checksum %d)%n",
+                        (System.nanoTime() - t) / (double) Math.max(1, keys.length), sum);
+            }
+        }
+    }
+}
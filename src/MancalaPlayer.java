@@ -0,0 +1,240 @@
+/**
+ * The MancalaPlayer interface defines a strategy for choosing moves, so the
+ * simulator and other headless tools can pit different policies against each
+ * other. A player is handed the game's MancalaModel and returns a legal pit;
+ * it may try moves with makeMove/unmakeMove as long as it leaves the model in
+ * the position it was given.
+ *
+ * Players are not thread-safe; create one per thread. The random and greedy
+ * players play on any board size, the engine, mcts and weighted players on the
+ * standard board only.
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaPlayer.java
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+
+public interface MancalaPlayer {
+    /**
+     * Chooses a move for the side to move.
+     * model the game, in the position to move from
+     * return a legal pit for the side to move
+     */
+    int choosePit(MancalaModel model);
+
+    /**
+     * return a short name for reports
+     */
+    String name();
+
+    /**
+     * Called before each game so randomized players can be reseeded and every game
+     * can be replayed from its seed.
+     * seed the game's seed
+     */
+    default void newGame(long seed) {
+    }
+
+    /**
+     * Creates a player from a short spec: "random", "greedy", "engine:depth[:millis]",
+     * "mcts:budget[:threads]", where the MCTS budget is milliseconds ("100ms") or
+     * a playout count ("20000"), or "weighted[:file]", where the file is a
+     * MancalaWeights file (mancala-weights.txt if present, else the default weights).
+     * spec the player spec
+     * return a new player
+     */
+    static MancalaPlayer create(String spec) {
+        String[] parts = spec.split(":");
+        switch (parts[0]) {
+            case "random":
+                return new RandomPlayer();
+            case "greedy":
+                return new GreedyPlayer();
+            case "engine":
+                int depth = parts.length > 1 ? Integer.parseInt(parts[1]) : 8;
+                long millis = parts.length > 2 ? Long.parseLong(parts[2]) : 60_000;
+                return new EnginePlayer(depth, millis);
+            case "mcts":
+                String budget = parts.length > 1 ? parts[1] : "100ms";
+                int threads = parts.length > 2 ? Integer.parseInt(parts[2]) : 1;
+                return budget.endsWith("ms")
+                        ? new MctsPlayer(Long.parseLong(budget.substring(0, budget.length() - 2)), Long.MAX_VALUE, threads)
+                        : new MctsPlayer(Long.MAX_VALUE, Long.parseLong(budget), threads);
+            case "weighted":
+                Path file = Paths.get(parts.length > 1 ? parts[1] : "mancala-weights.txt");
+                if (parts.length == 1 && !Files.exists(file)) {
+                    return new WeightedPlayer(MancalaWeights.defaults(), "weighted");
+                }
+                try {
+                    return new WeightedPlayer(MancalaWeights.load(file), "weighted:" + file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            default:
+                throw new IllegalArgumentException("unknown player: " + spec);
+        }
+    }
+}
+/**
+ * The RandomPlayer class picks uniformly among the legal pits.
+ */
+class RandomPlayer implements MancalaPlayer {
+    private SplittableRandom random = new SplittableRandom();
+
+    public int choosePit(MancalaModel model) {
+        int[] b = model.getBoard();
+        int first = model.isPlayer1Turn() ? 0 : model.getStore(true) + 1;
+        int pits = model.getPitsPerSide();
+        int pit;
+        do {
+            pit = first + random.nextInt(pits);
+        } while (b[pit] == 0);
+        return pit;
+    }
+
+    public String name() { return "random"; }
+
+    public void newGame(long seed) {
+        random = new SplittableRandom(seed);
+    }
+}
+/**
+ * The GreedyPlayer class takes the move that puts the most stones in its store
+ * right away, counting captures, and prefers a free turn on ties. Further ties go
+ * to the pit closest to the store.
+ */
+class GreedyPlayer implements MancalaPlayer {
+    public int choosePit(MancalaModel model) {
+        int[] b = model.getBoard();
+        boolean player1 = model.isPlayer1Turn();
+        int first = player1 ? 0 : model.getStore(true) + 1;
+        int store = model.getStore(player1);
+        int best = -1;
+        int bestScore = Integer.MIN_VALUE;
+        for (int pit = first + model.getPitsPerSide() - 1; pit >= first; pit--) {
+            if (b[pit] == 0) {
+                continue;
+            }
+            int before = b[store];
+            long token = model.makeMove(pit);
+            int score = 2 * (b[store] - before) + (MancalaModel.isFreeTurn(token) ? 1 : 0);
+            model.unmakeMove(token);
+            if (score > bestScore) {
+                bestScore = score;
+                best = pit;
+            }
+        }
+        return best;
+    }
+
+    public String name() { return "greedy"; }
+}
+/**
+ * The EnginePlayer class plays the best move found by MancalaSearch within a
+ * depth limit and a time budget. With a depth limit only, its play is deterministic.
+ */
+class EnginePlayer implements MancalaPlayer {
+    private final MancalaSearch search = new MancalaSearch(new MancalaTranspositionTable(4));
+    private final int depth;
+    private final long millis;
+
+    EnginePlayer(int depth, long millis) {
+        this.depth = depth;
+        this.millis = millis;
+    }
+
+    public int choosePit(MancalaModel model) {
+        model.requireStandard("EnginePlayer");
+        return search.search(model.getBoard(), model.isPlayer1Turn(), millis, depth).getBestPit();
+    }
+
+    public String name() { return "engine:" + depth; }
+
+    public void newGame(long seed) {
+        // start each game from an empty table so results do not depend on game order
+        search.getTable().clear();
+    }
+}
+/**
+ * The MctsPlayer class plays the most visited move of a MancalaMcts search with a
+ * time or playout budget. With a playout budget, its play depends only on the
+ * game seed.
+ */
+class MctsPlayer implements MancalaPlayer {
+    private final MancalaMcts mcts;
+    private final long millis;
+    private final long playouts;
+
+    MctsPlayer(long millis, long playouts, int threads) {
+        this.mcts = new MancalaMcts(threads, MancalaMcts.DEFAULT_NODES);
+        this.millis = millis;
+        this.playouts = playouts;
+    }
+
+    public int choosePit(MancalaModel model) {
+        model.requireStandard("MctsPlayer");
+        return mcts.search(model.getBoard(), model.isPlayer1Turn(), millis, playouts).getBestPit();
+    }
+
+    public String name() {
+        return "mcts:" + (millis != Long.MAX_VALUE ? millis + "ms" : String.valueOf(playouts));
+    }
+
+    public void newGame(long seed) {
+        mcts.setSeed(seed);
+    }
+}
+/**
+ * The WeightedPlayer class looks one move ahead and takes the move after which
+ * the learned evaluation (see MancalaWeights) gives its side the best odds.
+ * Moves that end the game are judged by the final score instead.
+ */
+class WeightedPlayer implements MancalaPlayer {
+    private final MancalaWeights weights;
+    private final String name;
+    private final float[] features = new float[MancalaWeights.COUNT];
+
+    WeightedPlayer(MancalaWeights weights, String name) {
+        this.weights = weights;
+        this.name = name;
+    }
+
+    public int choosePit(MancalaModel model) {
+        model.requireStandard("WeightedPlayer");
+        int[] b = model.getBoard();
+        boolean player1 = model.isPlayer1Turn();
+        int first = player1 ? 0 : 7;
+        int best = -1;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int pit = first + 5; pit >= first; pit--) {
+            if (b[pit] == 0) {
+                continue;
+            }
+            long token = model.makeMove(pit);
+            double score;
+            if (model.isGameOver()) {
+                int margin = model.getFinalScore(player1) - model.getFinalScore(!player1);
+                score = margin > 0 ? 1e9 : margin < 0 ? -1e9 : 0;
+            } else {
+                MancalaWeights.extract(b, model.isPlayer1Turn(), features, 0);
+                score = weights.score(features, 0);
+                if (model.isPlayer1Turn() != player1) {
+                    score = -score;
+                }
+            }
+            model.unmakeMove(token);
+            if (score > bestScore) {
+                bestScore = score;
+                best = pit;
+            }
+        }
+        return best;
+    }
+
+    public String name() { return name; }
+}
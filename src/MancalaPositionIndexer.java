@@ -0,0 +1,285 @@
+/**
+ * The MancalaPositionIndexer class maps positions to dense integer indices and
+ * back, for building tables such as endgame databases, opening books and
+ * visited-state bitsets. A position is a board in MancalaModel.getBoard order
+ * plus the side to move.
+ *
+ * Positions are canonicalised with the player-swap symmetry: a position with
+ * Player 2 to move is the same as the mirrored board with Player 1 to move, so
+ * boards are always read starting from the mover's pits and only half the index
+ * space is needed. The indexer can cover the twelve playing pits only (stones in
+ * play) or all fourteen slots including the stores.
+ *
+ * Within one stone count, positions are ranked lexicographically over the slots
+ * in mover-first order using a precomputed binomial table, so rank and unrank
+ * cost one table lookup per slot. Positions with fewer stones come first in the
+ * cumulative index.
+ * Usage (benchmark): java MancalaPositionIndexer [maxStones] [iterations]
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaPositionIndexer.java
+import java.util.Random;
+
+public class MancalaPositionIndexer {
+    // slot orders read from the mover's point of view
+    private static final int[] PITS_P1 = {0, 1, 2, 3, 4, 5, 7, 8, 9, 10, 11, 12};
+    private static final int[] PITS_P2 = {7, 8, 9, 10, 11, 12, 0, 1, 2, 3, 4, 5};
+    private static final int[] SLOTS_P1 = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13};
+    private static final int[] SLOTS_P2 = {7, 8, 9, 10, 11, 12, 13, 0, 1, 2, 3, 4, 5, 6};
+    private static final int SIDE_PITS = 6;
+
+    private final int maxStones;
+    private final int[] orderP1;
+    private final int[] orderP2;
+    private final int slots;
+    private final int width;
+    // binomial[n * width + k] = n choose k
+    private final long[] binomial;
+
+    /**
+     * Constructs an indexer for positions with up to maxStones stones.
+     * maxStones the largest stone count to index
+     * includeStores true to index all 14 slots, false for the 12 playing pits only
+     */
+    public MancalaPositionIndexer(int maxStones, boolean includeStores) {
+        if (maxStones < 0) {
+            throw new IllegalArgumentException("maxStones must not be negative: " + maxStones);
+        }
+        this.maxStones = maxStones;
+        orderP1 = includeStores ? SLOTS_P1 : PITS_P1;
+        orderP2 = includeStores ? SLOTS_P2 : PITS_P2;
+        slots = orderP1.length;
+        width = slots + 1;
+        int rows = maxStones + slots + 1;
+        binomial = new long[rows * width];
+        for (int n = 0; n < rows; n++) {
+            binomial[n * width] = 1;
+            for (int k = 1; k <= Math.min(n, slots); k++) {
+                binomial[n * width + k] = binomial[(n - 1) * width + k - 1] + binomial[(n - 1) * width + k];
+            }
+        }
+    }
+
+    /**
+     * return the largest stone count this indexer covers
+     */
+    public int getMaxStones() {
+        return maxStones;
+    }
+
+    /**
+     * return the number of canonical positions with exactly the given number of stones
+     */
+    public long count(int stones) {
+        return distributions(stones, slots);
+    }
+
+    /**
+     * return the index of the first canonical position with the given number of stones
+     */
+    public long offset(int stones) {
+        // sum over k < stones of C(k + slots - 1, slots - 1) is C(stones + slots - 1, slots)
+        return stones == 0 ? 0 : binomial[(stones + slots - 1) * width + slots];
+    }
+
+    /**
+     * return the number of canonical positions with up to getMaxStones stones
+     */
+    public long size() {
+        return offset(maxStones + 1);
+    }
+
+    /**
+     * Counts the stones the indexer covers on a board.
+     * board the 14 slot counts in MancalaModel.getBoard order
+     * return the stones in play, plus the stores if they are indexed
+     */
+    public int stones(int[] board) {
+        int k = 0;
+        for (int i = 0; i < slots; i++) {
+            k += board[orderP1[i]];
+        }
+        return k;
+    }
+
+    /**
+     * Returns the rank of a position among canonical positions with the same stone count.
+     * board the 14 slot counts in MancalaModel.getBoard order
+     * player1Turn true if player 1 is to move
+     * return the rank, from 0 to count(stones(board)) - 1
+     */
+    public long rank(int[] board, boolean player1Turn) {
+        return rank(board, player1Turn ? orderP1 : orderP2, 0, slots, stones(board));
+    }
+
+    /**
+     * Returns the cumulative index of a position over all stone counts up to getMaxStones.
+     * board the 14 slot counts in MancalaModel.getBoard order
+     * player1Turn true if player 1 is to move
+     * return the index, or -1 if the board holds more than getMaxStones stones
+     */
+    public long index(int[] board, boolean player1Turn) {
+        int[] order = player1Turn ? orderP1 : orderP2;
+        int k = 0;
+        for (int i = 0; i < slots; i++) {
+            k += board[order[i]];
+        }
+        if (k > maxStones) {
+            return -1;
+        }
+        return offset(k) + rank(board, order, 0, slots, k);
+    }
+
+    /**
+     * Fills board with the canonical position of the given rank, Player 1 to move.
+     * Slots the indexer does not cover are set to 0.
+     * rank the rank, from 0 to count(stones) - 1
+     * stones the stone count
+     * board receives the 14 slot counts
+     */
+    public void unrank(long rank, int stones, int[] board) {
+        board[MancalaModel.A_STORE] = 0;
+        board[MancalaModel.B_STORE] = 0;
+        unrank(rank, stones, board, orderP1, 0, slots);
+    }
+
+    /**
+     * Fills board with the canonical position at a cumulative index, Player 1 to move.
+     * index the index, from 0 to size() - 1
+     * board receives the 14 slot counts
+     */
+    public void unindex(long index, int[] board) {
+        int k = 0;
+        while (offset(k + 1) <= index) {
+            k++;
+        }
+        unrank(index - offset(k), k, board);
+    }
+
+    /**
+     * return the number of ways to place the given stones in one player's six pits
+     */
+    public long sideCount(int stones) {
+        return distributions(stones, SIDE_PITS);
+    }
+
+    /**
+     * Returns the rank of one player's six pits among distributions of the same count.
+     * board the 14 slot counts in MancalaModel.getBoard order
+     * player1 true for pits A1..A6, false for B1..B6
+     * return the rank
+     */
+    public long rankSide(int[] board, boolean player1) {
+        int[] order = player1 ? PITS_P1 : PITS_P2;
+        int k = 0;
+        for (int i = 0; i < SIDE_PITS; i++) {
+            k += board[order[i]];
+        }
+        return rank(board, order, 0, SIDE_PITS, k);
+    }
+
+    /**
+     * Fills one player's six pits with the distribution of the given rank.
+     * rank the rank, from 0 to sideCount(stones) - 1
+     * stones the stones on that side
+     * board receives the pit counts
+     * player1 true for pits A1..A6, false for B1..B6
+     */
+    public void unrankSide(long rank, int stones, int[] board, boolean player1) {
+        unrank(rank, stones, board, player1 ? PITS_P1 : PITS_P2, 0, SIDE_PITS);
+    }
+
+    private long distributions(int stones, int n) {
+        return binomial[(stones + n - 1) * width + n - 1];
+    }
+
+    /**
+     * Lexicographic rank of the counts in board[order[from..from+n-1]], which hold k stones.
+     */
+    private long rank(int[] board, int[] order, int from, int n, int k) {
+        long rank = 0;
+        int left = k;
+        for (int i = 0; i < n - 1; i++) {
+            int p = board[order[from + i]];
+            int rest = n - i - 1;
+            // distributions whose slot i holds fewer than p stones
+            rank += binomial[(left + rest) * width + rest] - binomial[(left - p + rest) * width + rest];
+            left -= p;
+        }
+        return rank;
+    }
+
+    private void unrank(long rank, int k, int[] board, int[] order, int from, int n) {
+        int left = k;
+        for (int i = 0; i < n - 1; i++) {
+            int rest = n - i - 1;
+            long total = binomial[(left + rest) * width + rest];
+            int p = 0;
+            // smallest p such that more than rank distributions have slot i <= p
+            long below = 0;
+            while (true) {
+                long upTo = total - binomial[(left - p - 1 + rest) * width + rest];
+                if (upTo > rank) {
+                    break;
+                }
+                below = upTo;
+                p++;
+            }
+            rank -= below;
+            board[order[from + i]] = p;
+            left -= p;
+        }
+        board[order[from + n - 1]] = left;
+    }
+
+    /**
+     * Measures rank and unrank speed on random positions.
+     */
+    public static void main(String[] args) {
+        int maxStones = args.length > 0 ? Integer.parseInt(args[0]) : 48;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+        MancalaPositionIndexer indexer = new MancalaPositionIndexer(maxStones, false);
+        Random random = new Random(6);
+        int samples = 4096;
+        int[][] boards = new int[samples][14];
+        boolean[] turns = new boolean[samples];
+        for (int[] board : boards) {
+            int k = random.nextInt(maxStones + 1);
+            for (int s = 0; s < k; s++) {
+                int pit = random.nextInt(12);
+                board[pit < 6 ? pit : pit + 1]++;
+            }
+        }
+        for (int i = 0; i < samples; i++) {
+            turns[i] = random.nextBoolean();
+        }
+        long[] ranks = new long[samples];
+        int[] counts = new int[samples];
+        for (int i = 0; i < samples; i++) {
+            counts[i] = indexer.stones(boards[i]);
+        }
+
+        int[] scratch = new int[14];
+        long sink = 0;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                int s = i & (samples - 1);
+                long r = indexer.rank(boards[s], turns[s]);
+                ranks[s] = r;
+                sink += r;
+            }
+            double rankNs = (System.nanoTime() - start) / (double) iterations;
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                int s = i & (samples - 1);
+                indexer.unrank(ranks[s], counts[s], scratch);
+                sink += scratch[5];
+            }
+            double unrankNs = (System.nanoTime() - start) / (double) iterations;
+            System.out.printf("round %d: rank %.1f ns/op, unrank %.1f ns/op%n", round, rankNs, unrankNs);
+        }
+        System.out.println("(checksum " + sink + ")");
+    }
+}
@@ -0,0 +1,315 @@
+/**
+ * The MancalaRecordReader class streams the games of a game record archive (see
+ * MancalaRecordWriter for the format). It reads through a channel into one fixed
+ * direct buffer and decodes a game at a time into arrays it reuses, so it can
+ * go through archives of millions of games, many gigabytes in size, in
+ * constant memory.
+ *
+ * Typical use:
+ *   try (MancalaRecordReader reader = MancalaRecordReader.open(path)) {
+ *       while (reader.next()) { ... reader.getMove(i) ... }
+ *   }
+ * Usage: java MancalaRecordReader archive   (prints a summary of the archive)
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaRecordReader.java
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class MancalaRecordReader implements Closeable {
+    private final ReadableByteChannel channel;
+    private ByteBuffer in = ByteBuffer.allocateDirect(1 << 20);
+    private boolean eof;
+    private long channelPosition; // bytes read from the channel so far, or since the last seek
+    private long gameOffset = -1;
+
+    // the current game
+    private int stones;
+    private byte[] moves = new byte[256];
+    private int moveCount;
+    private boolean finished;
+    private int checkpointInterval;
+    private int[] checkpoints = new int[15 * 16]; // per checkpoint: side to move, then 14 slots
+    private int checkpointCount;
+    private long games;
+
+    /**
+     * Creates a reader on a channel positioned at the start of an archive and
+     * checks the header.
+     * channel the channel to read from
+     */
+    public MancalaRecordReader(ReadableByteChannel channel) throws IOException {
+        this.channel = channel;
+        in.flip();
+        if (!fill(5)) {
+            throw new IOException("not a game record archive: too short");
+        }
+        for (byte b : MancalaRecordWriter.MAGIC) {
+            if (in.get() != b) {
+                throw new IOException("not a game record archive: bad magic");
+            }
+        }
+        int version = in.get();
+        if (version != MancalaRecordWriter.VERSION) {
+            throw new IOException("unsupported game record version " + version);
+        }
+    }
+
+    /**
+     * Opens an archive file.
+     * path the archive file
+     * return the reader
+     */
+    public static MancalaRecordReader open(Path path) throws IOException {
+        return new MancalaRecordReader(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    /**
+     * Makes sure at least n bytes are buffered, reading more from the channel if needed.
+     * return false if the channel ended first
+     */
+    private boolean fill(int n) throws IOException {
+        if (in.remaining() >= n) {
+            return true;
+        }
+        if (in.capacity() < n) {
+            ByteBuffer bigger = ByteBuffer.allocateDirect(Math.max(n, 2 * in.capacity()));
+            bigger.put(in);
+            in = bigger;
+        } else {
+            in.compact();
+        }
+        while (in.position() < n && !eof) {
+            int read = channel.read(in);
+            if (read < 0) {
+                eof = true;
+            } else {
+                channelPosition += read;
+            }
+        }
+        in.flip();
+        return in.remaining() >= n;
+    }
+
+    /**
+     * Reads the next game.
+     * return true if there was one; false at the end of the archive
+     */
+    public boolean next() throws IOException {
+        if (!fill(1)) {
+            return false;
+        }
+        gameOffset = channelPosition - in.remaining();
+        // the length prefix is at most 5 bytes; it may be followed by fewer near the end
+        fill(5);
+        int length = getVarint();
+        if (!fill(length)) {
+            throw new EOFException("game record at offset " + gameOffset + " is cut off");
+        }
+        int end = in.position() + length;
+        int flags = getVarint();
+        finished = (flags & MancalaRecordWriter.FLAG_FINISHED) != 0;
+        stones = getVarint();
+        moveCount = getVarint();
+        if (moves.length < moveCount + 1) {
+            moves = new byte[Math.max(moveCount + 1, 2 * moves.length)];
+        }
+        for (int i = 0; i < moveCount; i += 2) {
+            int b = in.get();
+            moves[i] = (byte) (b & 0xF);
+            moves[i + 1] = (byte) (b >> 4 & 0xF);
+        }
+        checkpointInterval = 0;
+        checkpointCount = 0;
+        if ((flags & MancalaRecordWriter.FLAG_CHECKPOINTS) != 0) {
+            checkpointInterval = getVarint();
+            checkpointCount = moveCount / checkpointInterval;
+            if (checkpoints.length < 15 * checkpointCount) {
+                checkpoints = new int[15 * checkpointCount];
+            }
+            for (int i = 0; i < 15 * checkpointCount; i++) {
+                checkpoints[i] = i % 15 == 0 ? in.get() : getVarint();
+            }
+        }
+        // skip anything a newer writer added that this reader does not know about
+        in.position(end);
+        games++;
+        return true;
+    }
+
+    /**
+     * return the byte offset of the current game's record in the archive, for seekGame
+     */
+    public long getGameOffset() {
+        return gameOffset;
+    }
+
+    /**
+     * Moves to the game whose record starts at the given offset, as returned by
+     * getGameOffset, and reads it. The channel must be seekable (a FileChannel is).
+     * offset the byte offset of the game's record
+     * return true if there was a game at the offset
+     */
+    public boolean seekGame(long offset) throws IOException {
+        if (!(channel instanceof SeekableByteChannel)) {
+            throw new IOException("archive channel is not seekable");
+        }
+        ((SeekableByteChannel) channel).position(offset);
+        channelPosition = offset;
+        eof = false;
+        in.clear().flip();
+        return next();
+    }
+
+    private int getVarint() {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * return the stones per pit the current game started with
+     */
+    public int getStones() {
+        return stones;
+    }
+
+    /**
+     * return the number of moves in the current game
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * return true if the current game was played to the end, false if it was
+     * abandoned part way (or written before archives recorded this)
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Returns a move of the current game.
+     * index the move number, from 0 to getMoveCount() - 1
+     * return the pit moved from
+     */
+    public int getMove(int index) {
+        if (index < 0 || index >= moveCount) {
+            throw new IndexOutOfBoundsException("move " + index + " outside 0.." + (moveCount - 1));
+        }
+        return moves[index];
+    }
+
+    /**
+     * return the number of moves between checkpoints, or 0 if the game has none
+     */
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    /**
+     * return the number of checkpoints stored with the current game
+     */
+    public int getCheckpointCount() {
+        return checkpointCount;
+    }
+
+    /**
+     * Loads a checkpoint of the current game into a model, without history.
+     * Checkpoint k is the position after (k + 1) * getCheckpointInterval() moves.
+     * k the checkpoint number
+     * model the model to load the position into
+     */
+    public void loadCheckpoint(int k, MancalaModel model) {
+        if (k < 0 || k >= checkpointCount) {
+            throw new IndexOutOfBoundsException("checkpoint " + k + " outside 0.." + (checkpointCount - 1));
+        }
+        model.requireStandard("MancalaRecordReader");
+        model.loadPosition(Arrays.copyOfRange(checkpoints, 15 * k + 1, 15 * k + 15), checkpoints[15 * k] == 1);
+    }
+
+    /**
+     * Copies a checkpoint of the current game without going through a model.
+     * Checkpoint k is the position after (k + 1) * getCheckpointInterval() moves.
+     * k the checkpoint number
+     * board receives the 14 slot counts in MancalaModel.getBoard order
+     * return true if player 1 is to move in the checkpoint
+     */
+    public boolean getCheckpoint(int k, int[] board) {
+        if (k < 0 || k >= checkpointCount) {
+            throw new IndexOutOfBoundsException("checkpoint " + k + " outside 0.." + (checkpointCount - 1));
+        }
+        System.arraycopy(checkpoints, 15 * k + 1, board, 0, 14);
+        return checkpoints[15 * k] == 1;
+    }
+
+    /**
+     * Replays the first moves of the current game into a model through move, so
+     * the model's history (undo, redo, seek) covers them.
+     * model the model to replay into
+     * plies how many moves to replay
+     */
+    public void replay(MancalaModel model, int plies) {
+        model.requireStandard("MancalaRecordReader");
+        model.newGame(stones);
+        for (int i = 0; i < plies; i++) {
+            model.move(getMove(i));
+        }
+    }
+
+    /**
+     * return the number of games read so far
+     */
+    public long getGamesRead() {
+        return games;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("usage: java MancalaRecordReader archive");
+            return;
+        }
+        long moves = 0;
+        long finished = 0;
+        long[] byStones = new long[32];
+        long start = System.nanoTime();
+        try (MancalaRecordReader reader = open(Paths.get(args[0]))) {
+            while (reader.next()) {
+                moves += reader.getMoveCount();
+                finished += reader.isFinished() ? 1 : 0;
+                byStones[Math.min(reader.getStones(), byStones.length - 1)]++;
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long games = reader.getGamesRead();
+            System.out.printf("%,d games, %,d moves (%.1f per game) read in %.2f s (%,.0f games/s)%n",
+                    games, moves, games == 0 ? 0.0 : (double) moves / games, seconds, games / seconds);
+            System.out.printf("  %,d finished, %,d unfinished%n", finished, games - finished);
+            for (int s = 0; s < byStones.length; s++) {
+                if (byStones[s] > 0) {
+                    System.out.printf("  %d stones: %,d games%n", s, byStones[s]);
+                }
+            }
+        }
+    }
+}
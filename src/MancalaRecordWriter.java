@@ -0,0 +1,163 @@
+/**
+ * The MancalaRecordWriter class appends games to a game record archive, a compact
+ * binary file of any number of games. A game is its starting stone count and the
+ * pits it moved from, so most games take a few dozen bytes.
+ *
+ * Archive layout (all integers are unsigned LEB128 varints unless noted):
+ *   header   "MGRA" (4 bytes), version (1 byte)
+ *   record*  length of the body in bytes, then the body:
+ *            flags (bit 0: has checkpoints, bit 1: finished, i.e. played to the
+ *            end rather than abandoned), stones per pit, number of moves,
+ *            moves as 4-bit pit indexes packed two to a byte (first move in the
+ *            low nibble), and with checkpoints: the interval K, then after every
+ *            K moves the side to move (1 byte, 1 = player 1) and the 14 slot counts.
+ * The length prefix lets a reader skip a game without decoding it, and
+ * checkpoints let it start replaying from the middle of a long game. Records
+ * written before the finished bit existed read as unfinished.
+ *
+ * Output is buffered and written through a channel, so archives can grow far
+ * beyond the heap.
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaRecordWriter.java
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class MancalaRecordWriter implements Closeable {
+    static final byte[] MAGIC = {'M', 'G', 'R', 'A'};
+    static final int VERSION = 1;
+    static final int FLAG_CHECKPOINTS = 1;
+    static final int FLAG_FINISHED = 2;
+    // the most bytes a varint of an int can take
+    private static final int MAX_VARINT = 5;
+
+    private final WritableByteChannel channel;
+    private final int checkpointInterval;
+    private final ByteBuffer out = ByteBuffer.allocate(1 << 16);
+    private ByteBuffer body = ByteBuffer.allocate(256);
+    private final MancalaModel replay = new MancalaModel();
+    private long games;
+
+    /**
+     * Creates a writer on a channel positioned at the end of an archive, or at the
+     * start of a new one.
+     * channel the channel to write to
+     * newArchive true to write the archive header first
+     * checkpointInterval store a checkpoint every this many moves, or 0 for none
+     */
+    public MancalaRecordWriter(WritableByteChannel channel, boolean newArchive, int checkpointInterval) throws IOException {
+        if (checkpointInterval < 0) {
+            throw new IllegalArgumentException("checkpoint interval must not be negative: " + checkpointInterval);
+        }
+        this.channel = channel;
+        this.checkpointInterval = checkpointInterval;
+        if (newArchive) {
+            out.put(MAGIC).put((byte) VERSION);
+        }
+    }
+
+    /**
+     * Opens an archive for appending, creating it with a header if it is empty.
+     * path the archive file
+     * checkpointInterval store a checkpoint every this many moves, or 0 for none
+     * return the writer
+     */
+    public static MancalaRecordWriter open(Path path, int checkpointInterval) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return new MancalaRecordWriter(channel, channel.size() == 0, checkpointInterval);
+    }
+
+    /**
+     * Appends one game.
+     * stones the stones per pit the game started with
+     * pits the pits moved from, in order
+     * count the number of moves
+     * finished true if the moves end the game, false for a game abandoned part way
+     */
+    public void writeGame(int stones, byte[] pits, int count, boolean finished) throws IOException {
+        boolean checkpoints = checkpointInterval > 0 && count >= checkpointInterval;
+        int size = 3 * MAX_VARINT + (count + 1) / 2
+                + (checkpoints ? MAX_VARINT + count / checkpointInterval * (1 + 14 * MAX_VARINT) : 0);
+        if (body.capacity() < size) {
+            body = ByteBuffer.allocate(Math.max(size, 2 * body.capacity()));
+        }
+        body.clear();
+        putVarint(body, (checkpoints ? FLAG_CHECKPOINTS : 0) | (finished ? FLAG_FINISHED : 0));
+        putVarint(body, stones);
+        putVarint(body, count);
+        for (int i = 0; i < count; i += 2) {
+            int high = i + 1 < count ? pits[i + 1] : 0;
+            body.put((byte) (pits[i] | high << 4));
+        }
+        if (checkpoints) {
+            putVarint(body, checkpointInterval);
+            replay.newGame(stones);
+            for (int i = 0; i < count; i++) {
+                replay.makeMove(pits[i]);
+                if ((i + 1) % checkpointInterval == 0) {
+                    body.put((byte) (replay.isPlayer1Turn() ? 1 : 0));
+                    for (int stonesInSlot : replay.getBoard()) {
+                        putVarint(body, stonesInSlot);
+                    }
+                }
+            }
+        }
+        body.flip();
+        if (out.remaining() < MAX_VARINT + body.remaining()) {
+            flush();
+        }
+        putVarint(out, body.remaining());
+        if (out.remaining() < body.remaining()) {
+            // a game bigger than the buffer goes straight to the channel
+            flush();
+            while (body.hasRemaining()) {
+                channel.write(body);
+            }
+        } else {
+            out.put(body);
+        }
+        games++;
+    }
+
+    /**
+     * return the number of games written by this writer
+     */
+    public long getGamesWritten() {
+        return games;
+    }
+
+    static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Writes out everything buffered so far.
+     */
+    public void flush() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    /**
+     * Flushes and closes the channel.
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ * The MancalaReplay class steps through a recorded game on a MancalaModel. It keeps
+ * the board after every K plies as a checkpoint in one primitive int array. Going
+ * to any ply then takes one checkpoint plus at most K - 1 moves, however long the
+ * game. A game read from an archive that stored checkpoints (see
+ * MancalaRecordWriter) uses those, with the archive's interval, so loading it
+ * does not replay the game; otherwise the game is replayed once on loading to
+ * work the checkpoints out. The position is worked out on a private model and
+ * handed to the displayed model in a single loadPosition, so a view redraws once
+ * per seek whatever the distance jumped.
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaReplay.java
+import java.util.Arrays;
+
+public class MancalaReplay {
+    public static final int DEFAULT_INTERVAL = 16;
+    // per checkpoint: side to move (1 = player 1), then the 14 slots
+    private static final int CHECKPOINT_SIZE = 15;
+
+    private final MancalaModel display;
+    private final int defaultInterval;
+    private int interval; // the loaded game's checkpoint interval
+    private final MancalaModel scratch = new MancalaModel();
+    private final int[] board = new int[14];
+    private byte[] moves = new byte[256];
+    private int count;
+    private int stones;
+    private int[] checkpoints = new int[CHECKPOINT_SIZE * 16];
+    private int ply;
+
+    /**
+     * Constructs a replay that shows positions on the given model.
+     * display the model to load positions into; it should not be one a game is played on
+     * interval the number of plies between checkpoints for games without stored ones
+     */
+    public MancalaReplay(MancalaModel display, int interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("checkpoint interval must be at least 1: " + interval);
+        }
+        display.requireStandard("MancalaReplay");
+        this.display = display;
+        this.defaultInterval = interval;
+    }
+
+    /**
+     * Loads a game and shows its starting position.
+     * stones the stones per pit the game started with
+     * pits the pits moved from, in order
+     * count the number of moves
+     */
+    public void load(int stones, byte[] pits, int count) {
+        if (moves.length < count) {
+            moves = new byte[Math.max(count, 2 * moves.length)];
+        }
+        System.arraycopy(pits, 0, moves, 0, count);
+        index(stones, count);
+    }
+
+    /**
+     * Loads the reader's current game and shows its starting position, taking the
+     * checkpoints from the archive if the game has them.
+     * reader a reader positioned on a game
+     */
+    public void load(MancalaRecordReader reader) {
+        int n = reader.getMoveCount();
+        if (moves.length < n) {
+            moves = new byte[Math.max(n, 2 * moves.length)];
+        }
+        for (int i = 0; i < n; i++) {
+            moves[i] = (byte) reader.getMove(i);
+        }
+        int stored = reader.getCheckpointCount();
+        if (stored == 0) {
+            index(reader.getStones(), n);
+            return;
+        }
+        // checkpoint 0 is the start; archive checkpoint k is ours k + 1
+        stones = reader.getStones();
+        count = n;
+        interval = reader.getCheckpointInterval();
+        ensureCheckpoints(stored + 1);
+        scratch.newGame(stones);
+        saveCheckpoint(0);
+        for (int k = 0; k < stored; k++) {
+            boolean player1 = reader.getCheckpoint(k, board);
+            int at = CHECKPOINT_SIZE * (k + 1);
+            checkpoints[at] = player1 ? 1 : 0;
+            System.arraycopy(board, 0, checkpoints, at + 1, 14);
+        }
+        ply = -1;
+        seek(0);
+    }
+
+    private void ensureCheckpoints(int n) {
+        int needed = CHECKPOINT_SIZE * n;
+        if (checkpoints.length < needed) {
+            checkpoints = Arrays.copyOf(checkpoints, Math.max(needed, 2 * checkpoints.length));
+        }
+    }
+
+    /**
+     * Stores the scratch model's position as checkpoint k.
+     */
+    private void saveCheckpoint(int k) {
+        int at = CHECKPOINT_SIZE * k;
+        checkpoints[at] = scratch.isPlayer1Turn() ? 1 : 0;
+        System.arraycopy(scratch.getBoard(), 0, checkpoints, at + 1, 14);
+    }
+
+    /**
+     * Replays the whole game once, saving a checkpoint every interval plies
+     * (the first one is the start), then shows ply 0.
+     */
+    private void index(int stones, int count) {
+        this.stones = stones;
+        this.count = count;
+        interval = defaultInterval;
+        ensureCheckpoints(count / interval + 1);
+        scratch.newGame(stones);
+        for (int i = 0; ; i++) {
+            if (i % interval == 0) {
+                saveCheckpoint(i / interval);
+            }
+            if (i == count) {
+                break;
+            }
+            if (!scratch.isLegalPick(moves[i])) {
+                throw new IllegalArgumentException("move " + i + " from pit " + moves[i] + " is not legal");
+            }
+            scratch.makeMove(moves[i]);
+        }
+        ply = -1;
+        seek(0);
+    }
+
+    /**
+     * Shows the position after the given number of plies.
+     * target the ply, clamped to 0..getMoveCount()
+     */
+    public void seek(int target) {
+        target = Math.max(0, Math.min(count, target));
+        if (target == ply) {
+            return;
+        }
+        int k = target / interval;
+        int at = CHECKPOINT_SIZE * k;
+        System.arraycopy(checkpoints, at + 1, board, 0, 14);
+        scratch.loadPosition(board, checkpoints[at] == 1);
+        for (int i = k * interval; i < target; i++) {
+            if (!scratch.isLegalPick(moves[i])) {
+                throw new IllegalArgumentException("move " + i + " from pit " + moves[i] + " is not legal");
+            }
+            scratch.makeMove(moves[i]);
+        }
+        ply = target;
+        display.loadPosition(scratch.getBoard(), scratch.isPlayer1Turn());
+    }
+
+    public void stepForward() {
+        seek(ply + 1);
+    }
+
+    public void stepBack() {
+        seek(ply - 1);
+    }
+
+    /**
+     * return the ply shown
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * return the number of moves in the loaded game
+     */
+    public int getMoveCount() {
+        return count;
+    }
+
+    public int getStones() {
+        return stones;
+    }
+
+    /**
+     * Returns a move of the loaded game.
+     * index the move number, from 0 to getMoveCount() - 1
+     * return the pit moved from
+     */
+    public int getMove(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("move " + index + " outside 0.." + (count - 1));
+        }
+        return moves[index];
+    }
+}
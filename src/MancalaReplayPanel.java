@@ -0,0 +1,175 @@
+/**
+ * The MancalaReplayPanel class lets a player review the games in a game record
+ * archive. It shows a MancalaView of its own model, a scrub slider over the plies
+ * of the current game, step buttons, and buttons to move between games. Seeking
+ * goes through a MancalaReplay, so dragging the slider over long games only costs
+ * one checkpoint and a few moves per position.
+ *
+ * Games are read from the archive one at a time. The offsets of the games seen
+ * so far are kept, so going back to an earlier game is a single seek. Games that
+ * were abandoned before the end are marked unfinished in the status line.
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaReplayPanel.java
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class MancalaReplayPanel extends JPanel {
+    private final MancalaRecordReader reader;
+    private final MancalaReplay replay;
+    private final JSlider slider = new JSlider(0, 0, 0);
+    private final JLabel status = new JLabel();
+    private final JButton btnPrevGame = new JButton("<< Game");
+    private final JButton btnNextGame = new JButton("Game >>");
+    private long[] offsets = new long[64]; // record offsets of the games seen, by game number
+    private int gamesSeen;
+    private int game = -1;
+    private boolean finished;
+    private boolean lastGameSeen;
+
+    /**
+     * Constructs a replay panel and shows the first game of the archive.
+     * reader an open reader at the start of the archive; the panel closes it in close
+     * style the board style for the view
+     */
+    public MancalaReplayPanel(MancalaRecordReader reader, MancalaBoardStyle style) throws IOException {
+        super(new BorderLayout());
+        this.reader = reader;
+        MancalaModel model = new MancalaModel();
+        MancalaView view = new MancalaView(model, style);
+        view.setAnimationSpeed(MancalaView.AnimationSpeed.INSTANT);
+        view.setGameOverDialog(false);
+        model.attach(view);
+        replay = new MancalaReplay(model, MancalaReplay.DEFAULT_INTERVAL);
+
+        JButton btnStart = new JButton("|<");
+        JButton btnBack = new JButton("<");
+        JButton btnForward = new JButton(">");
+        JButton btnEnd = new JButton(">|");
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controls.add(btnPrevGame);
+        controls.add(btnStart);
+        controls.add(btnBack);
+        controls.add(btnForward);
+        controls.add(btnEnd);
+        controls.add(btnNextGame);
+        controls.add(status);
+
+        JPanel south = new JPanel(new BorderLayout());
+        south.add(slider, BorderLayout.NORTH);
+        south.add(controls, BorderLayout.SOUTH);
+        add(view, BorderLayout.CENTER);
+        add(south, BorderLayout.SOUTH);
+
+        // the slider drives every seek; the buttons just move it
+        slider.addChangeListener(e -> {
+            replay.seek(slider.getValue());
+            updateStatus();
+        });
+        btnStart.addActionListener(e -> slider.setValue(0));
+        btnBack.addActionListener(e -> slider.setValue(replay.getPly() - 1));
+        btnForward.addActionListener(e -> slider.setValue(replay.getPly() + 1));
+        btnEnd.addActionListener(e -> slider.setValue(replay.getMoveCount()));
+        btnPrevGame.addActionListener(e -> showGame(game - 1));
+        btnNextGame.addActionListener(e -> showGame(game + 1));
+
+        showGame(0);
+    }
+
+    /**
+     * Loads a game of the archive by number. Games not seen yet are read in order;
+     * earlier ones are found again through their saved offsets.
+     * n the game number, from 0
+     */
+    private void showGame(int n) {
+        try {
+            if (n < 0) {
+                return;
+            }
+            if (n < gamesSeen) {
+                reader.seekGame(offsets[n]);
+            } else {
+                if (gamesSeen > 0 && reader.getGameOffset() != offsets[gamesSeen - 1]) {
+                    reader.seekGame(offsets[gamesSeen - 1]);
+                }
+                while (gamesSeen <= n) {
+                    if (!reader.next()) {
+                        lastGameSeen = true;
+                        updateStatus();
+                        return;
+                    }
+                    if (gamesSeen == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, 2 * gamesSeen);
+                    }
+                    offsets[gamesSeen++] = reader.getGameOffset();
+                }
+            }
+            game = n;
+            replay.load(reader);
+            finished = reader.isFinished();
+            slider.setMaximum(replay.getMoveCount());
+            slider.setValue(0);
+            updateStatus();
+        } catch (IOException | IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(this, "Cannot read game " + (n + 1) + ": " + e.getMessage(),
+                    "Replay", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private void updateStatus() {
+        if (game < 0) {
+            status.setText("The archive has no games");
+        } else {
+            status.setText("Game " + (game + 1) + (lastGameSeen ? " of " + gamesSeen : "")
+                    + ", " + replay.getStones() + " stones, ply " + replay.getPly()
+                    + " of " + replay.getMoveCount() + (finished ? "" : " (unfinished)"));
+        }
+        btnPrevGame.setEnabled(game > 0);
+        btnNextGame.setEnabled(!lastGameSeen || game < gamesSeen - 1);
+    }
+
+    /**
+     * Closes the archive.
+     */
+    public void close() {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            // nothing left to read from it anyway
+        }
+    }
+
+    /**
+     * Opens an archive in a replay window.
+     * owner the frame the window belongs to
+     * archive the game record archive
+     * style the board style for the view
+     */
+    public static void showWindow(Frame owner, Path archive, MancalaBoardStyle style) {
+        MancalaReplayPanel panel;
+        try {
+            panel = new MancalaReplayPanel(MancalaRecordReader.open(archive), style);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(owner, "Cannot open " + archive + ": " + e.getMessage(),
+                    "Replay", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        JDialog dialog = new JDialog(owner, "Replay — " + archive.getFileName(), false);
+        dialog.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        dialog.addWindowListener(new WindowAdapter() {
+            public void windowClosed(WindowEvent e) {
+                panel.close();
+            }
+        });
+        dialog.add(panel);
+        dialog.pack();
+        dialog.setLocationRelativeTo(owner);
+        dialog.setVisible(true);
+    }
+}
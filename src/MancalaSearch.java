@@ -0,0 +1,495 @@
+/**
+ * The MancalaSearch class is a computer opponent's search engine. It runs a
+ * negamax alpha-beta search with iterative deepening on a private copy of a
+ * MancalaModel position, using makeMove/unmakeMove so the search does not
+ * allocate. Free turns keep the same side to move, so the score of such a
+ * child is not negated. Moves that earn a free turn are tried first, then
+ * captures, then the rest. Results are cached in a MancalaTranspositionTable
+ * keyed by the model's Zobrist hash. Each search has a time budget in milliseconds
+ * and returns the best move of the deepest completed iteration.
+ *
+ * With more than one thread the search runs lazy SMP: helper threads search the
+ * same position at staggered depths and share only the transposition table, so
+ * their results speed up the main thread through table hits.
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaSearch.java
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class MancalaSearch {
+    private static final int MAX_PLY = 128;
+    // how many nodes are searched between two clock reads
+    private static final int CHECK_INTERVAL = 1023;
+
+    private final MancalaTranspositionTable table;
+    private MancalaEndgameDatabase endgame;
+    private MancalaOpeningBook book;
+    private boolean useBookAnswers;
+    private Worker[] workers;
+    private ExecutorService helperPool;
+    private long deadline;
+    private long searchStart;
+    private volatile boolean stopRequested;
+    private volatile ProgressListener progress;
+
+    /**
+     * Constructs a single-threaded search with a 16 MB transposition table.
+     */
+    public MancalaSearch() {
+        this(new MancalaTranspositionTable(16));
+    }
+
+    /**
+     * Constructs a single-threaded search that caches results in the given table.
+     * table the transposition table to use
+     */
+    public MancalaSearch(MancalaTranspositionTable table) {
+        this(table, 1);
+    }
+
+    /**
+     * Constructs a search that runs on the given number of threads.
+     * table the transposition table shared by all threads
+     * threads the number of search threads, at least 1
+     */
+    public MancalaSearch(MancalaTranspositionTable table, int threads) {
+        this.table = table;
+        setThreads(threads);
+    }
+
+    /**
+     * Sets the number of search threads. The calling thread is the main thread;
+     * threads - 1 helper threads are started from a daemon pool.
+     * threads the number of search threads, at least 1
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1: " + threads);
+        }
+        if (helperPool != null) {
+            helperPool.shutdownNow();
+            helperPool = null;
+        }
+        workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(i);
+        }
+        if (threads > 1) {
+            helperPool = Executors.newFixedThreadPool(threads - 1, r -> {
+                Thread t = new Thread(r, "mancala-search-helper");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /**
+     * return the number of search threads
+     */
+    public int getThreads() {
+        return workers.length;
+    }
+
+    /**
+     * Returns how many nodes each thread searched in the last search,
+     * the main thread first.
+     * return one node count per thread
+     */
+    public long[] getThreadNodes() {
+        long[] counts = new long[workers.length];
+        for (int i = 0; i < workers.length; i++) {
+            counts[i] = workers[i].nodes;
+        }
+        return counts;
+    }
+
+    /**
+     * Lets the search score positions with few stones left exactly from an endgame
+     * database instead of searching them.
+     * endgame the database to probe, or null to search every position
+     */
+    public void setEndgameDatabase(MancalaEndgameDatabase endgame) {
+        this.endgame = endgame;
+    }
+
+    /**
+     * Lets searches of opening positions use the book: a stored result at least as
+     * deep as the search asks for (or any stored result, see setUseBookAnswers) is
+     * returned right away; otherwise the book move is searched first.
+     * book the opening book to use, or null for none
+     */
+    public void setOpeningBook(MancalaOpeningBook book) {
+        this.book = book;
+    }
+
+    /**
+     * Sets whether a book hit is the answer whatever depth the search asks for.
+     * Timed searches pass no depth limit, so they only take book answers this way;
+     * callers that want opening moves in microseconds turn it on.
+     * useBookAnswers true to return every book hit right away
+     */
+    public void setUseBookAnswers(boolean useBookAnswers) {
+        this.useBookAnswers = useBookAnswers;
+    }
+
+    /**
+     * return the transposition table, e.g. to report its hit rate and occupancy
+     */
+    public MancalaTranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Receives a Result each time the main thread completes an iteration, so callers
+     * can show a search's progress before it ends. It is called on the searching
+     * thread and should return quickly.
+     */
+    public interface ProgressListener {
+        void iterationCompleted(Result result);
+    }
+
+    /**
+     * Sets the listener told about every completed iteration.
+     * listener the listener, or null for none
+     */
+    public void setProgressListener(ProgressListener listener) {
+        this.progress = listener;
+    }
+
+    /**
+     * The outcome of one search: the best pit, its score from the side to move's
+     * point of view (in stones), the deepest completed depth and the node count
+     * summed over all threads.
+     */
+    public static class Result {
+        private final int bestPit;
+        private final int score;
+        private final int depth;
+        private final long nodes;
+        private final long elapsedNanos;
+
+        Result(int bestPit, int score, int depth, long nodes, long elapsedNanos) {
+            this.bestPit = bestPit;
+            this.score = score;
+            this.depth = depth;
+            this.nodes = nodes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getBestPit() { return bestPit; }
+        public int getScore() { return score; }
+        public int getDepth() { return depth; }
+        public long getNodes() { return nodes; }
+        public long getElapsedMillis() { return elapsedNanos / 1_000_000; }
+
+        /**
+         * return the search speed in nodes per second
+         */
+        public long getNodesPerSecond() {
+            return elapsedNanos == 0 ? 0 : nodes * 1_000_000_000L / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "pit " + bestPit + " score " + score + " depth " + depth
+                    + " nodes " + nodes + " (" + getNodesPerSecond() + " nps, "
+                    + getElapsedMillis() + " ms)";
+        }
+    }
+
+    /**
+     * Searches the given model's current position. The model itself is not touched.
+     * position the model whose position is searched
+     * millis the time budget for this move
+     * return the best move found, or null if the side to move has no legal pick
+     */
+    public Result search(MancalaModel position, long millis) {
+        position.requireStandard("MancalaSearch");
+        return search(position.getBoard(), position.isPlayer1Turn(), millis, MAX_PLY - 1);
+    }
+
+    /**
+     * Searches a position by iterative deepening until the time budget runs out,
+     * maxDepth is reached, or the game tree below the position is fully solved.
+     * board the 14 slot counts in MancalaModel.getBoard order
+     * player1Turn true if player 1 is to move
+     * millis the time budget for this move
+     * maxDepth the deepest iteration to start
+     * return the best move found, or null if the side to move has no legal pick
+     */
+    public Result search(int[] board, boolean player1Turn, long millis, int maxDepth) {
+        long start = System.nanoTime();
+        searchStart = start;
+        deadline = start + millis * 1_000_000L;
+        stopRequested = false;
+        for (Worker worker : workers) {
+            worker.reset(board, player1Turn);
+        }
+        Worker main = workers[0];
+        if (main.model.isGameOver()) {
+            return null;
+        }
+        int booked = book == null ? 0 : book.probe(main.model.getHash());
+        if (booked != 0) {
+            if (useBookAnswers || MancalaOpeningBook.depth(booked) >= maxDepth) {
+                return new Result(MancalaOpeningBook.bestPit(booked), MancalaOpeningBook.score(booked),
+                        MancalaOpeningBook.depth(booked), 0, System.nanoTime() - start);
+            }
+            // too shallow to answer with, but its move is the best guess to search first
+            for (Worker worker : workers) {
+                worker.rootBest = MancalaOpeningBook.bestPit(booked);
+            }
+        }
+        final int depthLimit = Math.min(maxDepth, MAX_PLY - 1);
+
+        Future<?>[] helpers = new Future<?>[workers.length - 1];
+        for (int i = 1; i < workers.length; i++) {
+            Worker helper = workers[i];
+            helpers[i - 1] = helperPool.submit(() -> helper.iterate(depthLimit));
+        }
+        main.iterate(depthLimit);
+        for (int i = 1; i < workers.length; i++) {
+            workers[i].cancelled = true;
+        }
+        for (Future<?> helper : helpers) {
+            try {
+                helper.get();
+            } catch (Exception e) {
+                // a failed helper only costs speed; the main thread's result stands
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+        long nodes = totalNodes();
+        if (main.bestDepth == 0 && booked != 0) {
+            // not even depth 1 finished; the book's shallower result beats a blind pick
+            return new Result(MancalaOpeningBook.bestPit(booked), MancalaOpeningBook.score(booked),
+                    MancalaOpeningBook.depth(booked), nodes, elapsed);
+        }
+        if (main.bestDepth == 0) {
+            // not even depth 1 finished; fall back to the first legal pick
+            int first = player1Turn ? 0 : 7;
+            while (board[first] == 0) {
+                first++;
+            }
+            return new Result(first, 0, 0, nodes, elapsed);
+        }
+        return new Result(main.bestPit, main.bestScore, main.bestDepth, nodes, elapsed);
+    }
+
+    /**
+     * return the nodes searched so far by all threads; approximate while they run
+     */
+    private long totalNodes() {
+        long nodes = 0;
+        for (Worker worker : workers) {
+            nodes += worker.nodes;
+        }
+        return nodes;
+    }
+
+    /**
+     * Asks a running search to stop as soon as possible. Safe to call from any thread.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * One search thread: its own model copy, move lists and node counter.
+     * Worker 0 is the main thread; the others are lazy SMP helpers.
+     */
+    private class Worker {
+        private final int id;
+        private final MancalaModel model = new MancalaModel();
+        private final int[][] moves = new int[MAX_PLY][6];
+        private final int[][] keys = new int[MAX_PLY][6];
+        private long nodes;
+        private boolean aborted;
+        private boolean hitHorizon;
+        private int rootBest;
+        private volatile boolean cancelled;
+        private int bestPit;
+        private int bestScore;
+        private int bestDepth;
+
+        Worker(int id) {
+            this.id = id;
+        }
+
+        void reset(int[] board, boolean player1Turn) {
+            model.loadPosition(board, player1Turn);
+            nodes = 0;
+            aborted = false;
+            cancelled = false;
+            rootBest = -1;
+            bestDepth = 0;
+        }
+
+        /**
+         * Iterative deepening loop. Helpers with an odd id skip every other depth
+         * so the threads spread over different depths.
+         */
+        void iterate(int maxDepth) {
+            int step = id % 2 == 1 ? 2 : 1;
+            for (int depth = 1 + id % 2; depth <= maxDepth; depth += step) {
+                hitHorizon = false;
+                int score = negamax(depth, -Integer.MAX_VALUE, Integer.MAX_VALUE, 0);
+                if (aborted) {
+                    return;
+                }
+                bestPit = rootBest;
+                bestScore = score;
+                bestDepth = depth;
+                ProgressListener listener = progress;
+                if (id == 0 && listener != null) {
+                    listener.iterationCompleted(new Result(bestPit, bestScore, bestDepth,
+                            totalNodes(), System.nanoTime() - searchStart));
+                }
+                if (!hitHorizon) {
+                    return; // every line reached the end of the game
+                }
+            }
+        }
+
+        private int negamax(int depth, int alpha, int beta, int ply) {
+            if ((++nodes & CHECK_INTERVAL) == 0
+                    && (stopRequested || cancelled || System.nanoTime() - deadline > 0)) {
+                aborted = true;
+            }
+            if (aborted) {
+                return 0;
+            }
+            int[] b = model.getBoard();
+            boolean player1 = model.isPlayer1Turn();
+            if (model.isGameOver()) {
+                return model.getFinalScore(player1) - model.getFinalScore(!player1);
+            }
+            if (endgame != null && ply > 0) {
+                // never at the root, which has to come back with a move to play
+                int value = endgame.probe(b, player1);
+                if (value != MancalaEndgameDatabase.UNKNOWN) {
+                    return evaluate(b, player1) + value;
+                }
+            }
+            if (depth <= 0 || ply >= MAX_PLY - 1) {
+                hitHorizon = true;
+                return evaluate(b, player1);
+            }
+
+            long hash = model.getHash();
+            long entry = table.probe(hash);
+            int ttPit = -1;
+            if (entry != 0) {
+                ttPit = MancalaTranspositionTable.bestPit(entry);
+                int ttDepth = MancalaTranspositionTable.depth(entry);
+                if (ply > 0 && ttDepth >= depth) {
+                    int ttScore = MancalaTranspositionTable.score(entry);
+                    int bound = MancalaTranspositionTable.bound(entry);
+                    if (bound == MancalaTranspositionTable.EXACT
+                            || (bound == MancalaTranspositionTable.LOWER_BOUND && ttScore >= beta)
+                            || (bound == MancalaTranspositionTable.UPPER_BOUND && ttScore <= alpha)) {
+                        if (ttDepth != MancalaTranspositionTable.SOLVED) {
+                            hitHorizon = true;
+                        }
+                        return ttScore;
+                    }
+                }
+            }
+            // track whether this subtree reaches the horizon anywhere, separately from the rest of the tree
+            boolean outerHorizon = hitHorizon;
+            hitHorizon = false;
+
+            int count = orderMoves(b, player1, ply, ttPit);
+            int[] list = moves[ply];
+            int alphaOrig = alpha;
+            int best = -Integer.MAX_VALUE;
+            int bestMove = -1;
+            for (int i = 0; i < count; i++) {
+                int pit = list[i];
+                long token = model.makeMove(pit);
+                int score;
+                if (MancalaModel.isFreeTurn(token)) {
+                    score = negamax(depth - 1, alpha, beta, ply + 1);
+                } else {
+                    score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+                }
+                model.unmakeMove(token);
+                if (aborted) {
+                    return 0;
+                }
+                if (score > best) {
+                    best = score;
+                    bestMove = pit;
+                    if (ply == 0) {
+                        rootBest = pit;
+                    }
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+            int bound = best <= alphaOrig ? MancalaTranspositionTable.UPPER_BOUND
+                    : best >= beta ? MancalaTranspositionTable.LOWER_BOUND : MancalaTranspositionTable.EXACT;
+            table.store(hash, hitHorizon ? depth : MancalaTranspositionTable.SOLVED, best, bound, bestMove);
+            hitHorizon |= outerHorizon;
+            return best;
+        }
+
+        /**
+         * Fills moves[ply] with the legal picks, ordered free turns first, then captures,
+         * then the rest. The transposition table's best move goes before all of them,
+         * as does the previous iteration's best move at the root.
+         * return the number of legal picks
+         */
+        private int orderMoves(int[] b, boolean player1, int ply, int ttPit) {
+            int[] list = moves[ply];
+            int[] key = keys[ply];
+            int first = player1 ? 0 : 7;
+            int ownStore = player1 ? MancalaModel.A_STORE : MancalaModel.B_STORE;
+            int count = 0;
+            for (int pit = first; pit < first + 6; pit++) {
+                int stones = b[pit];
+                if (stones == 0) {
+                    continue;
+                }
+                int land = MancalaModel.landingSlot(pit, stones, player1);
+                int k;
+                if (pit == ttPit || (ply == 0 && pit == rootBest)) {
+                    k = 3;
+                } else if (land == ownStore) {
+                    k = 2;
+                } else if (land != pit && land >= first && land < first + 6
+                        && b[land] == 0 && b[12 - land] > 0 && stones < 13) {
+                    k = 1;
+                } else {
+                    k = 0;
+                }
+                // insertion sort, highest key first
+                int j = count++;
+                while (j > 0 && key[j - 1] < k) {
+                    list[j] = list[j - 1];
+                    key[j] = key[j - 1];
+                    j--;
+                }
+                list[j] = pit;
+                key[j] = k;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Heuristic score at the horizon: store difference from the mover's point of view.
+     */
+    private static int evaluate(int[] b, boolean player1) {
+        int diff = b[MancalaModel.A_STORE] - b[MancalaModel.B_STORE];
+        return player1 ? diff : -diff;
+    }
+}
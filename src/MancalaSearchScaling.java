@@ -0,0 +1,82 @@
+/**
+ * The MancalaSearchScaling class prints a scaling report for the parallel search.
+ * It plays a fixed, seeded suite of positions out of the 3- and 4-stone starts,
+ * searches each one to a fixed depth with 1, 2, 4, 8 and 16 threads (a fresh
+ * transposition table per search), and reports time to depth, nodes per second
+ * and speedup over one thread.
+ * Usage: java MancalaSearchScaling [depth] [positions] [tableMB]
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaSearchScaling.java
+import java.util.Random;
+
+public class MancalaSearchScaling {
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16};
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 18;
+        int positions = args.length > 1 ? Integer.parseInt(args[1]) : 12;
+        int tableMB = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+
+        int[][] boards = new int[positions][];
+        boolean[] turns = new boolean[positions];
+        buildSuite(boards, turns);
+
+        System.out.printf("Search scaling: %d positions, depth %d, %d MB table, %d cores%n",
+                positions, depth, tableMB, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%8s %12s %14s %12s %9s%n", "threads", "time ms", "nodes", "knps", "speedup");
+        // warm up the JIT so the 1-thread baseline is not measured in the interpreter
+        MancalaSearch warmup = new MancalaSearch(new MancalaTranspositionTable(tableMB), 1);
+        for (int i = 0; i < positions; i++) {
+            warmup.search(boards[i], turns[i], Long.MAX_VALUE / 2_000_000, depth);
+        }
+        double baseline = 0;
+        for (int threads : THREAD_COUNTS) {
+            MancalaTranspositionTable table = new MancalaTranspositionTable(tableMB);
+            MancalaSearch search = new MancalaSearch(table, threads);
+            long nodes = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < positions; i++) {
+                table.clear();
+                MancalaSearch.Result r = search.search(boards[i], turns[i], Long.MAX_VALUE / 2_000_000, depth);
+                if (r != null) {
+                    nodes += r.getNodes();
+                }
+            }
+            double millis = (System.nanoTime() - start) / 1e6;
+            if (threads == 1) {
+                baseline = millis;
+            }
+            System.out.printf("%8d %12.1f %14d %12d %9.2f%n", threads, millis, nodes,
+                    (long) (nodes / millis), baseline / millis);
+        }
+    }
+
+    /**
+     * Fills the suite with positions reached by seeded random play, alternating between
+     * the 3- and 4-stone starts and skipping finished games.
+     */
+    private static void buildSuite(int[][] boards, boolean[] turns) {
+        Random random = new Random(151);
+        MancalaModel model = new MancalaModel();
+        int filled = 0;
+        while (filled < boards.length) {
+            model.newGame(filled % 2 == 0 ? 3 : 4);
+            int plies = 4 + random.nextInt(12);
+            for (int p = 0; p < plies && !model.isGameOver(); p++) {
+                int first = model.isPlayer1Turn() ? 0 : 7;
+                int pit;
+                do {
+                    pit = first + random.nextInt(6);
+                } while (!model.isLegalPick(pit));
+                model.makeMove(pit);
+            }
+            if (!model.isGameOver()) {
+                boards[filled] = model.getBoard().clone();
+                turns[filled] = model.isPlayer1Turn();
+                filled++;
+            }
+        }
+    }
+}
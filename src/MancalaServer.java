@@ -0,0 +1,297 @@
+/**
+ * The MancalaServer class hosts many Mancala games at once without a window. It
+ * listens on localhost and speaks a line protocol: every request is one line and
+ * gets one reply line. Each connection is served by its own virtual thread, so
+ * thousands of mostly idle clients cost little more than their sockets.
+ *
+ * Games live in a concurrent session registry keyed by session id, not in the
+ * connection, so a client may play several games on one connection or continue a
+ * game after reconnecting. Sessions nobody touched for the idle timeout are evicted.
+ *
+ * Protocol (case-insensitive commands, pits numbered as in MancalaModel.getBoard):
+ *   NEW n          start a game with n stones per pit   -> OK id
+ *   MOVE id pit    move from a pit                       -> OK state | ERR reason
+ *   UNDO id        undo, under the game's undo rule      -> OK state | ERR reason
+ *   STATE id       query the game                        -> OK state
+ *   CLOSE id       end the session                       -> OK
+ *   QUIT           close the connection
+ * where state is "A", "B" or "OVER" (the side to move) followed by the 14 slot counts.
+ * Usage: java MancalaServer [-port n] [-idle seconds]
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaServer.java
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class MancalaServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 7777;
+    public static final int DEFAULT_IDLE_SECONDS = 300;
+    private static final int BACKLOG = 4096;
+    private static final int MAX_STONES = 20;
+    // pause after a failed accept, doubled while failures repeat
+    private static final long MIN_ACCEPT_BACKOFF_MILLIS = 10;
+    private static final long MAX_ACCEPT_BACKOFF_MILLIS = 100;
+
+    private final ServerSocket server;
+    private final ConcurrentHashMap<Long, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final long idleNanos;
+    private final ScheduledExecutorService evictor;
+    private final LongAdder connections = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder acceptFailures = new LongAdder();
+    private volatile String lastAcceptFailure;
+    private volatile boolean closed;
+
+    /**
+     * One game. Requests for the same session are serialized on the session itself,
+     * since a client may send them over several connections.
+     */
+    private static final class Session {
+        final MancalaModel model = new MancalaModel();
+        volatile long lastUsed = System.nanoTime();
+    }
+
+    /**
+     * Binds a server to a localhost port and starts its idle eviction.
+     * Call start to accept connections.
+     * port the TCP port, or 0 for any free port
+     * idleSeconds how long an untouched session is kept
+     */
+    public MancalaServer(int port, long idleSeconds) throws IOException {
+        server = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+        idleNanos = TimeUnit.SECONDS.toNanos(idleSeconds);
+        evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "mancala-session-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1, idleSeconds / 4);
+        evictor.scheduleWithFixedDelay(() -> evictIdle(System.nanoTime()), period, period, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Starts accepting connections on a virtual thread and returns at once.
+     */
+    public void start() {
+        Thread.ofVirtual().name("mancala-accept").start(this::acceptLoop);
+    }
+
+    /**
+     * Accepts connections until the server is closed. A failed accept (typically
+     * "Too many open files" under load, which lasts until clients disconnect) is
+     * counted in stats and followed by a short pause, doubled while failures
+     * repeat, so the loop does not spin.
+     */
+    private void acceptLoop() {
+        long backoff = MIN_ACCEPT_BACKOFF_MILLIS;
+        while (!closed) {
+            try {
+                Socket socket = server.accept();
+                connections.increment();
+                Thread.ofVirtual().start(() -> serve(socket));
+                backoff = MIN_ACCEPT_BACKOFF_MILLIS;
+            } catch (IOException e) {
+                if (closed) {
+                    return;
+                }
+                acceptFailures.increment();
+                lastAcceptFailure = e.getMessage();
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                backoff = Math.min(2 * backoff, MAX_ACCEPT_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Answers one connection's requests until it sends QUIT or goes away.
+     * Replies are flushed only once no further request is already buffered,
+     * so pipelining clients get their replies in batches.
+     */
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII))) {
+            socket.setTcpNoDelay(true);
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.trim().equalsIgnoreCase("QUIT")) {
+                    break;
+                }
+                out.write(handle(line));
+                out.write('\n');
+                if (!in.ready()) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            // the client went away; its sessions stay until they idle out
+        }
+    }
+
+    /**
+     * Executes one request line.
+     * line the request
+     * return the reply, without the line terminator
+     */
+    String handle(String line) {
+        requests.increment();
+        String[] words = line.trim().split("\\s+");
+        String command = words[0].toUpperCase();
+        try {
+            switch (command) {
+                case "NEW": {
+                    int stones = words.length > 1 ? Integer.parseInt(words[1]) : 4;
+                    if (stones < 1 || stones > MAX_STONES) {
+                        return "ERR stones must be 1 to " + MAX_STONES;
+                    }
+                    Session session = new Session();
+                    session.model.newGame(stones);
+                    long id = nextId.getAndIncrement();
+                    sessions.put(id, session);
+                    return "OK " + id;
+                }
+                case "MOVE":
+                case "UNDO":
+                case "STATE":
+                case "CLOSE": {
+                    if (words.length < 2) {
+                        return "ERR missing session id";
+                    }
+                    long id = Long.parseLong(words[1]);
+                    Session session = command.equals("CLOSE") ? sessions.remove(id) : sessions.get(id);
+                    if (session == null) {
+                        return "ERR no session " + id;
+                    }
+                    if (command.equals("CLOSE")) {
+                        return "OK";
+                    }
+                    session.lastUsed = System.nanoTime();
+                    synchronized (session) {
+                        MancalaModel model = session.model;
+                        if (command.equals("MOVE")) {
+                            if (words.length < 3) {
+                                return "ERR missing pit";
+                            }
+                            int pit = Integer.parseInt(words[2]);
+                            if (pit < 0 || pit > 13 || model.isGameOver() || !model.isLegalPick(pit)) {
+                                return "ERR illegal move " + pit;
+                            }
+                            model.move(pit);
+                        } else if (command.equals("UNDO") && !model.undo()) {
+                            return "ERR cannot undo now";
+                        }
+                        return "OK " + state(model);
+                    }
+                }
+                default:
+                    return "ERR unknown command " + words[0];
+            }
+        } catch (NumberFormatException e) {
+            return "ERR bad number in: " + line;
+        }
+    }
+
+    /**
+     * return the side to move ("A", "B", or "OVER") followed by the 14 slot counts
+     */
+    private static String state(MancalaModel model) {
+        StringBuilder sb = new StringBuilder(48);
+        sb.append(model.isGameOver() ? "OVER" : model.isPlayer1Turn() ? "A" : "B");
+        for (int stones : model.getBoard()) {
+            sb.append(' ').append(stones);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Removes the sessions not used since idleNanos before now.
+     * now the current System.nanoTime
+     * return the number of sessions removed
+     */
+    int evictIdle(long now) {
+        int removed = 0;
+        for (Iterator<Session> it = sessions.values().iterator(); it.hasNext(); ) {
+            if (now - it.next().lastUsed > idleNanos) {
+                it.remove();
+                removed++;
+            }
+        }
+        evicted.add(removed);
+        return removed;
+    }
+
+    /**
+     * return the port the server listens on
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * return a one-line summary of connections, requests, sessions, evictions and
+     * failed accepts (with the last failure's message)
+     */
+    public String stats() {
+        long failures = acceptFailures.sum();
+        return String.format("%,d connections, %,d requests, %,d sessions open, %,d evicted, %,d failed accepts%s",
+                connections.sum(), requests.sum(), sessions.size(), evicted.sum(), failures,
+                failures == 0 ? "" : " (last: " + lastAcceptFailure + ")");
+    }
+
+    /**
+     * Stops accepting connections and stops eviction. Open connections finish on their own.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        evictor.shutdownNow();
+        server.close();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = DEFAULT_PORT;
+        long idle = DEFAULT_IDLE_SECONDS;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-port": port = Integer.parseInt(args[++i]); break;
+                case "-idle": idle = Long.parseLong(args[++i]); break;
+                default:
+                    System.err.println("usage: java MancalaServer [-port n] [-idle seconds]");
+                    return;
+            }
+        }
+        MancalaServer server = new MancalaServer(port, idle);
+        server.start();
+        System.out.println("Mancala server listening on localhost:" + server.getPort());
+        while (true) {
+            Thread.sleep(10_000);
+            System.out.println(server.stats());
+        }
+    }
+}
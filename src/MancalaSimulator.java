@@ -0,0 +1,331 @@
+/**
+ * The MancalaSimulator class plays large numbers of headless games between two
+ * MancalaPlayer policies and streams aggregate statistics: first-player advantage,
+ * average game length, capture and free-turn frequency and average margin, for
+ * 3 and 4 stones per pit (the choices MancalaInitDialog offers).
+ *
+ * Games are spread over a fixed pool of worker threads. Each thread has its own
+ * model and players, and every game is seeded from the run seed and its game
+ * number, so a run is reproducible no matter how games land on threads. Only
+ * running totals are kept, never individual games.
+ *
+ * With -pits the games are played on a larger variant board, for stress runs;
+ * the random and greedy players support any board size. With -record every game
+ * is also appended to a game record archive (see MancalaRecordWriter), which is
+ * how self-play data for MancalaWeightTuner is made.
+ * Usage: java MancalaSimulator [-games n] [-stones 3|4|both|n] [-p1 spec] [-p2 spec]
+ *        [-threads n] [-seed n] [-pits n] [-record archive]
+ *        (player specs: see MancalaPlayer.create)
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaSimulator.java
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class MancalaSimulator {
+    // games a worker claims at once, so the shared counter is not contended
+    private static final int CHUNK = 256;
+    private static final long REPORT_MILLIS = 2000;
+
+    private final String p1Spec;
+    private final String p2Spec;
+    private final int[] stoneCounts;
+    private final long games;
+    private final long seed;
+    private final Stats[] stats;
+    private final AtomicLong nextGame = new AtomicLong();
+    private int pitsPerSide = MancalaModel.STANDARD_PITS;
+    private MancalaRecordWriter recorder;
+
+    /**
+     * Running totals for one starting stone count. Workers add a chunk at a time.
+     */
+    static class Stats {
+        final int stones;
+        final LongAdder games = new LongAdder();
+        final LongAdder p1Wins = new LongAdder();
+        final LongAdder p2Wins = new LongAdder();
+        final LongAdder draws = new LongAdder();
+        final LongAdder plies = new LongAdder();
+        final LongAdder captures = new LongAdder();
+        final LongAdder freeTurns = new LongAdder();
+        final LongAdder margin = new LongAdder();
+
+        Stats(int stones) {
+            this.stones = stones;
+        }
+
+        String summary() {
+            long n = Math.max(1, games.sum());
+            return String.format("%d stones: %,d games | P1 %.2f%% P2 %.2f%% draw %.2f%% | "
+                            + "%.1f plies, %.2f captures, %.2f free turns, P1 margin %+.2f per game",
+                    stones, games.sum(), 100.0 * p1Wins.sum() / n, 100.0 * p2Wins.sum() / n,
+                    100.0 * draws.sum() / n, (double) plies.sum() / n, (double) captures.sum() / n,
+                    (double) freeTurns.sum() / n, (double) margin.sum() / n);
+        }
+    }
+
+    /**
+     * Constructs a simulation.
+     * p1Spec the spec of the player who moves first
+     * p2Spec the spec of the other player
+     * stoneCounts the starting stones per pit; games alternate between them
+     * games the total number of games
+     * seed the run seed
+     */
+    public MancalaSimulator(String p1Spec, String p2Spec, int[] stoneCounts, long games, long seed) {
+        this.p1Spec = p1Spec;
+        this.p2Spec = p2Spec;
+        this.stoneCounts = stoneCounts;
+        this.games = games;
+        this.seed = seed;
+        stats = new Stats[stoneCounts.length];
+        for (int i = 0; i < stoneCounts.length; i++) {
+            stats[i] = new Stats(stoneCounts[i]);
+        }
+        // make sure the specs are valid before any thread starts
+        MancalaPlayer.create(p1Spec);
+        MancalaPlayer.create(p2Spec);
+    }
+
+    /**
+     * Sets the board size games are played on.
+     * pitsPerSide the pits on each side, MancalaModel.STANDARD_PITS by default
+     */
+    public void setPitsPerSide(int pitsPerSide) {
+        this.pitsPerSide = pitsPerSide;
+    }
+
+    /**
+     * Sets an archive every game is appended to, in the order games finish.
+     * Workers take turns writing whole games, so the writer needs no other locking.
+     * recorder the archive, or null to record nothing
+     */
+    public void setRecorder(MancalaRecordWriter recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Runs all games on the given number of threads, printing progress periodically.
+     * If a worker fails (a player or the recorder throws), the others stop after
+     * their current chunk and the first failure is rethrown, so an incomplete run
+     * never ends with a normal report.
+     * threads the number of worker threads
+     */
+    public void run(int threads) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(pool.submit(() -> {
+                try {
+                    work();
+                } catch (RuntimeException | Error e) {
+                    nextGame.set(games); // no more chunks for anyone
+                    throw e;
+                }
+            }));
+        }
+        pool.shutdown();
+        while (!pool.awaitTermination(REPORT_MILLIS, TimeUnit.MILLISECONDS)) {
+            report(start);
+        }
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException(cause);
+            }
+        }
+        report(start);
+    }
+
+    private void report(long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long done = 0;
+        for (Stats s : stats) {
+            done += s.games.sum();
+        }
+        System.out.printf("[%.1f s] %,d / %,d games (%,.0f games/s)%n", seconds, done, games, done / seconds);
+        for (Stats s : stats) {
+            System.out.println("  " + s.summary());
+        }
+    }
+
+    /**
+     * Worker loop: claims chunks of game numbers until all games are played.
+     */
+    private void work() {
+        MancalaModel model = new MancalaModel(pitsPerSide);
+        MancalaPlayer p1 = MancalaPlayer.create(p1Spec);
+        MancalaPlayer p2 = MancalaPlayer.create(p2Spec);
+        int configs = stoneCounts.length;
+        long[] local = new long[configs * 8];
+        MoveLog log = recorder != null ? new MoveLog() : null;
+        while (true) {
+            long from = nextGame.getAndAdd(CHUNK);
+            if (from >= games) {
+                break;
+            }
+            long to = Math.min(games, from + CHUNK);
+            for (long g = from; g < to; g++) {
+                int config = (int) (g % configs);
+                long gameSeed = mix(seed + g);
+                p1.newGame(gameSeed);
+                p2.newGame(gameSeed ^ 0x5DEECE66DL);
+                model.newGame(stoneCounts[config]);
+                playGame(model, p1, p2, local, config * 8, log);
+                if (log != null) {
+                    record(stoneCounts[config], log);
+                }
+            }
+            for (int c = 0; c < configs; c++) {
+                flush(stats[c], local, c * 8);
+            }
+        }
+    }
+
+    private void record(int stones, MoveLog log) {
+        synchronized (recorder) {
+            try {
+                recorder.writeGame(stones, log.moves, log.count, true);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * The moves of the game being played, kept for the record.
+     */
+    static final class MoveLog {
+        byte[] moves = new byte[256];
+        int count;
+
+        void add(int pit) {
+            if (count == moves.length) {
+                moves = Arrays.copyOf(moves, 2 * count);
+            }
+            moves[count++] = (byte) pit;
+        }
+    }
+
+    /**
+     * Plays one game and adds its outcome to the local counters at base:
+     * games, p1 wins, p2 wins, draws, plies, captures, free turns, margin.
+     * log receives the game's moves, or null
+     */
+    static void playGame(MancalaModel model, MancalaPlayer p1, MancalaPlayer p2, long[] local, int base, MoveLog log) {
+        int plies = 0;
+        int captures = 0;
+        int freeTurns = 0;
+        if (log != null) {
+            log.count = 0;
+        }
+        while (!model.isGameOver()) {
+            MancalaPlayer player = model.isPlayer1Turn() ? p1 : p2;
+            int pit = player.choosePit(model);
+            if (log != null) {
+                log.add(pit);
+            }
+            long token = model.makeMove(pit);
+            plies++;
+            if (MancalaModel.isCapture(token)) {
+                captures++;
+            }
+            if (MancalaModel.isFreeTurn(token)) {
+                freeTurns++;
+            }
+        }
+        int a = model.getFinalScore(true);
+        int bb = model.getFinalScore(false);
+        local[base]++;
+        local[base + (a > bb ? 1 : a < bb ? 2 : 3)]++;
+        local[base + 4] += plies;
+        local[base + 5] += captures;
+        local[base + 6] += freeTurns;
+        local[base + 7] += a - bb;
+    }
+
+    private static void flush(Stats s, long[] local, int base) {
+        s.games.add(local[base]);
+        s.p1Wins.add(local[base + 1]);
+        s.p2Wins.add(local[base + 2]);
+        s.draws.add(local[base + 3]);
+        s.plies.add(local[base + 4]);
+        s.captures.add(local[base + 5]);
+        s.freeTurns.add(local[base + 6]);
+        s.margin.add(local[base + 7]);
+        for (int i = 0; i < 8; i++) {
+            local[base + i] = 0;
+        }
+    }
+
+    /**
+     * SplitMix64 finalizer, used to derive well-spread per-game seeds.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        long games = 1_000_000;
+        String stones = "both";
+        String p1 = "random";
+        String p2 = "random";
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 151;
+        int pits = MancalaModel.STANDARD_PITS;
+        String record = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-games": games = Long.parseLong(args[i + 1]); break;
+                case "-stones": stones = args[i + 1]; break;
+                case "-p1": p1 = args[i + 1]; break;
+                case "-p2": p2 = args[i + 1]; break;
+                case "-threads": threads = Integer.parseInt(args[i + 1]); break;
+                case "-seed": seed = Long.parseLong(args[i + 1]); break;
+                case "-pits": pits = Integer.parseInt(args[i + 1]); break;
+                case "-record": record = args[i + 1]; break;
+                default: throw new IllegalArgumentException("unknown option: " + args[i]);
+            }
+        }
+        int[] stoneCounts = stones.equals("both") ? new int[] {3, 4} : new int[] {Integer.parseInt(stones)};
+        System.out.printf("Simulating %,d games: %s vs %s on %d threads, seed %d, %d pits per side%n",
+                games, p1, p2, threads, seed, pits);
+        MancalaSimulator simulator = new MancalaSimulator(p1, p2, stoneCounts, games, seed);
+        simulator.setPitsPerSide(pits);
+        if (record != null) {
+            if (pits != MancalaModel.STANDARD_PITS) {
+                throw new IllegalArgumentException("game records hold standard-board games only");
+            }
+            try (MancalaRecordWriter writer = MancalaRecordWriter.open(Paths.get(record), 0)) {
+                simulator.setRecorder(writer);
+                simulator.run(threads);
+            }
+        } else {
+            simulator.run(threads);
+        }
+    }
+}
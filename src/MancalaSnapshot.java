@@ -0,0 +1,133 @@
+/**
+ * The MancalaSnapshot class is an immutable copy of a MancalaModel position that
+ * other threads can read safely. The model publishes a new snapshot through an
+ * atomic reference every time it notifies its listeners (new game, move, undo,
+ * seek), so a spectator thread calling MancalaModel.getSnapshot always gets a
+ * complete position between two moves, never a half-sown board, and never blocks
+ * or slows down the thread playing the game.
+ *
+ * Snapshots are numbered: the version goes up by one with every publication, so
+ * a reader can tell whether anything changed since it last looked. The board has
+ * the model's slot count, so snapshots of larger variant boards work the same way.
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaSnapshot.java
+public final class MancalaSnapshot {
+    private final long version;
+    private final int[] board;
+    private final boolean player1Turn;
+    private final int ply;
+    private final long hash;
+    private final MancalaChangeEvent.Kind kind;
+    private final long move;
+
+    /**
+     * Constructs a snapshot. The board is copied.
+     * version the publication number
+     * board the slot counts in MancalaModel.getBoard order
+     * player1Turn true if Player 1 is to move
+     * ply the number of moves played to reach the position
+     * hash the position hash, as MancalaModel.getHash returns it
+     * kind the change that produced the position
+     * move the undo token of the move made or undone, -1 if none
+     */
+    MancalaSnapshot(long version, int[] board, boolean player1Turn, int ply, long hash,
+                    MancalaChangeEvent.Kind kind, long move) {
+        this.version = version;
+        this.board = board.clone();
+        this.player1Turn = player1Turn;
+        this.ply = ply;
+        this.hash = hash;
+        this.kind = kind;
+        this.move = move;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * return the stones in one slot
+     */
+    public int getPit(int index) {
+        return board[index];
+    }
+
+    /**
+     * return the number of slots, 14 on the standard board
+     */
+    public int getSlotCount() {
+        return board.length;
+    }
+
+    /**
+     * return a copy of the slot counts
+     */
+    public int[] getBoard() {
+        return board.clone();
+    }
+
+    /**
+     * Copies the slot counts into an existing array, to read without allocating.
+     * dest an array of at least getSlotCount() ints
+     */
+    public void copyBoard(int[] dest) {
+        System.arraycopy(board, 0, dest, 0, board.length);
+    }
+
+    public boolean isPlayer1Turn() {
+        return player1Turn;
+    }
+
+    public int getPly() {
+        return ply;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    public MancalaChangeEvent.Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * return the undo token of the move that was made or undone, -1 after a new game or seek
+     */
+    public long getMove() {
+        return move;
+    }
+
+    /**
+     * return true if either side has no stones left in its pits
+     */
+    public boolean isGameOver() {
+        return getStonesOnSide(true) == 0 || getStonesOnSide(false) == 0;
+    }
+
+    /**
+     * return the stones in one player's pits, not counting the store
+     */
+    public int getStonesOnSide(boolean player1) {
+        int pits = board.length / 2 - 1;
+        int first = player1 ? 0 : pits + 1;
+        int total = 0;
+        for (int i = first; i < first + pits; i++) {
+            total += board[i];
+        }
+        return total;
+    }
+
+    /**
+     * return a player's store plus the stones still on that player's side
+     */
+    public int getFinalScore(boolean player1) {
+        return board[player1 ? board.length / 2 - 1 : board.length - 1] + getStonesOnSide(player1);
+    }
+
+    @Override
+    public String toString() {
+        return "#" + version + " ply " + ply + (player1Turn ? " A " : " B ") + java.util.Arrays.toString(board);
+    }
+}
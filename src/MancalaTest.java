@@ -9,8 +9,15 @@
 // MancalaTest.java
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
 
 public class MancalaTest {
+    private static final String RECORD_FILE = "mancala-games.mgr";
+
     /**
      * Launches the Mancala game UI. This method constructs the game model,
      * initializes the view using the user's selected style and stone count,
@@ -40,6 +47,19 @@ public class MancalaTest {
 
             MancalaView view = new MancalaView(model, initialDialog.getSelectedStyle());
             model.attach(view);
+            MancalaEndgameDatabase endgame = MancalaEndgameDatabase.openIfPresent(Paths.get("mancala-endgame.db"));
+            MancalaOpeningBook book = MancalaOpeningBook.openIfPresent(Paths.get("mancala-opening.book"));
+            MancalaComputerOpponent computer = new MancalaComputerOpponent(model, 1000);
+            computer.setEndgameDatabase(endgame);
+            computer.setOpeningBook(book);
+            model.attach(computer);
+            MancalaAnalysisPanel analysisPanel = new MancalaAnalysisPanel();
+            MancalaAnalysisService analysis = new MancalaAnalysisService(model, analysisPanel);
+            analysis.setEndgameDatabase(endgame);
+            analysis.setOpeningBook(book);
+            model.attach(analysis);
+            // the recorder while "Record games" is ticked, else null
+            MancalaGameRecorder[] recorder = new MancalaGameRecorder[1];
             model.newGame(initialDialog.getStones());
 
             // Toolbar
@@ -47,16 +67,34 @@ public class MancalaTest {
 
             JButton btnNew = new JButton("New");
             JButton btnUndo = new JButton("Undo");
+            JButton btnReplay = new JButton("Replay...");
             JButton btnClassic = new JButton("Classic");
             JButton btnOcean = new JButton("Ocean");
+            JCheckBox chkComputer = new JCheckBox("Computer plays B");
+            JCheckBox chkHints = new JCheckBox("Hints");
+            JCheckBox chkMetrics = new JCheckBox("Metrics", MancalaMetrics.isEnabled());
+            JCheckBox chkRecord = new JCheckBox("Record games");
+            chkRecord.setToolTipText("Save games to " + RECORD_FILE + " (from the next new game if this one has started)");
+            JComboBox<MancalaView.AnimationSpeed> cmbSpeed = new JComboBox<>(MancalaView.AnimationSpeed.values());
+            cmbSpeed.setSelectedItem(view.getAnimationSpeed());
+            cmbSpeed.setMaximumSize(cmbSpeed.getPreferredSize());
 
-            tb.add(btnNew); tb.add(btnUndo);
+            tb.add(btnNew); tb.add(btnUndo); tb.add(btnReplay);
             tb.addSeparator();
             tb.add(new JLabel("Style: "));
             tb.add(btnClassic); tb.add(btnOcean);
+            tb.addSeparator();
+            tb.add(chkComputer);
+            tb.add(chkHints);
+            tb.add(chkMetrics);
+            tb.add(chkRecord);
+            tb.addSeparator();
+            tb.add(new JLabel("Animation: "));
+            tb.add(cmbSpeed);
 
             f.add(tb, BorderLayout.NORTH);
             f.add(view, BorderLayout.CENTER);
+            f.add(analysisPanel, BorderLayout.EAST);
             // New game action
             btnNew.addActionListener(e -> {
                 MancalaInitDialog configDialog = MancalaInitDialog.showDialog(f);
@@ -71,14 +109,94 @@ public class MancalaTest {
                     JOptionPane.showMessageDialog(f, "Cannot undo now (max 3 per turn, and not twice in a row).");
                 }
             });
+            // Review recorded games; games finished so far are flushed to the archive first
+            btnReplay.addActionListener(e -> {
+                JFileChooser chooser = new JFileChooser(new File("."));
+                chooser.setSelectedFile(new File(RECORD_FILE));
+                if (chooser.showOpenDialog(f) == JFileChooser.APPROVE_OPTION) {
+                    if (recorder[0] != null) {
+                        try {
+                            recorder[0].flush();
+                        } catch (IOException ex) {
+                            System.err.println("Could not save the current game: " + ex.getMessage());
+                        }
+                    }
+                    MancalaReplayPanel.showWindow(f, chooser.getSelectedFile().toPath(), view.getStyle());
+                }
+            });
+            // Let the computer take over Player 2
+            chkComputer.addActionListener(e -> computer.setEnabled(chkComputer.isSelected()));
+            // Best move hint and evaluation bar, searched in the background
+            chkHints.addActionListener(e -> analysis.setEnabled(chkHints.isSelected()));
+            // Move, undo and paint timings, written to mancala-metrics.json every 5 seconds
+            chkMetrics.addActionListener(e -> {
+                MancalaMetrics.setEnabled(chkMetrics.isSelected());
+                if (chkMetrics.isSelected()) {
+                    MancalaMetrics.startExport(Paths.get("mancala-metrics.json"), 5000);
+                } else {
+                    MancalaMetrics.stopExport();
+                }
+            });
+            // Opt-in game recording; unticking writes the game in progress as unfinished
+            chkRecord.addActionListener(e -> {
+                if (chkRecord.isSelected()) {
+                    recorder[0] = openRecorder(model);
+                    if (recorder[0] == null) {
+                        chkRecord.setSelected(false);
+                        JOptionPane.showMessageDialog(f, "Cannot open " + RECORD_FILE + "; games will not be recorded.");
+                    }
+                } else {
+                    model.detach(recorder[0]);
+                    closeRecorder(recorder[0]);
+                    recorder[0] = null;
+                }
+            });
+            // Animation speed, including instant moves
+            cmbSpeed.addActionListener(e -> view.setAnimationSpeed((MancalaView.AnimationSpeed) cmbSpeed.getSelectedItem()));
             // Change board style dynamically
             btnClassic.addActionListener(e -> view.setStyle(classic));
             btnOcean.addActionListener(e -> view.setStyle(ocean));
+            // Write the game in progress to the archive on exit
+            f.addWindowListener(new WindowAdapter() {
+                public void windowClosing(WindowEvent e) {
+                    closeRecorder(recorder[0]);
+                }
+            });
             // Display window
             f.pack();
             f.setLocationRelativeTo(null);
             f.setVisible(true);
         });
     }
+
+    /**
+     * Starts recording the games played into mancala-games.mgr, with a checkpoint
+     * every 16 moves. Recording is off until the
+     * player ticks "Record games"; playing goes on unrecorded if the archive
+     * cannot be opened.
+     * model the model to record
+     * return the attached recorder, or null
+     */
+    private static MancalaGameRecorder openRecorder(MancalaModel model) {
+        try {
+            MancalaGameRecorder recorder = new MancalaGameRecorder(model,
+                    MancalaRecordWriter.open(Paths.get(RECORD_FILE), 16));
+            model.attach(recorder);
+            return recorder;
+        } catch (IOException e) {
+            System.err.println("Games will not be recorded: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void closeRecorder(MancalaGameRecorder recorder) {
+        if (recorder != null) {
+            try {
+                recorder.close();
+            } catch (IOException e) {
+                System.err.println("Could not save the last game: " + e.getMessage());
+            }
+        }
+    }
 }
 
@@ -0,0 +1,311 @@
+/**
+ * The MancalaTournament class tells whether one player is objectively stronger
+ * than another. It plays every pair of the given MancalaPlayer specs against each
+ * other in a round robin. Games come in pairs from the same start, once with each
+ * player in the first seat, so neither gains from moving first. Starts alternate
+ * between 3 and 4 stones per pit (the choices MancalaInitDialog offers) and can
+ * begin with a few random moves, so deterministic players do not repeat one game.
+ *
+ * Game pairs are spread over a fixed pool of worker threads with their own players.
+ * For each pairing the runner reports wins, draws and losses, an Elo difference
+ * with a 95% error bar, and the log-likelihood ratio of a sequential probability
+ * ratio test (SPRT) of elo0 against elo1. A pairing stops being scheduled once its
+ * test accepts either hypothesis.
+ * Usage: java MancalaTournament -players spec,spec[,...] [-pairs n] [-openings plies]
+ *        [-threads n] [-seed n] [-sprt elo0,elo1] [-alpha a] [-beta b]
+ *        (player specs: see MancalaPlayer.create)
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaTournament.java
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class MancalaTournament {
+    private static final long REPORT_MILLIS = 5000;
+    private static final int[] STONES = {3, 4};
+
+    private final String[] specs;
+    private final int[][] pairings;
+    private final Pairing[] results;
+    private final long maxGamePairs;
+    private final int openingPlies;
+    private final long seed;
+    private final double elo0, elo1;
+    private final double lowerBound, upperBound;
+    private final AtomicLong nextGamePair = new AtomicLong();
+    private final AtomicLong gamesPlayed = new AtomicLong();
+
+    /**
+     * Results of one pairing, from the first player's point of view.
+     * Updated under its own lock once per game pair.
+     */
+    final class Pairing {
+        final int first, second;
+        long wins, draws, losses;
+        // 0 while running, 1 when H1 (first is elo1 stronger) is accepted, -1 for H0
+        volatile int verdict;
+
+        Pairing(int first, int second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        synchronized void add(int result1, int result2) {
+            for (int r : new int[] {result1, result2}) {
+                if (r > 0) {
+                    wins++;
+                } else if (r < 0) {
+                    losses++;
+                } else {
+                    draws++;
+                }
+            }
+            if (verdict == 0 && elo1 > elo0) {
+                double llr = llr();
+                verdict = llr >= upperBound ? 1 : llr <= lowerBound ? -1 : 0;
+            }
+        }
+
+        long games() {
+            return wins + draws + losses;
+        }
+
+        /**
+         * return the mean score per game, draws counting half
+         */
+        double score() {
+            return games() == 0 ? 0.5 : (wins + 0.5 * draws) / games();
+        }
+
+        /**
+         * return the variance of a single game's score
+         */
+        double variance() {
+            long n = games();
+            if (n == 0) {
+                return 0;
+            }
+            double s = score();
+            return (wins * (1 - s) * (1 - s) + draws * (0.5 - s) * (0.5 - s) + losses * s * s) / n;
+        }
+
+        /**
+         * Log-likelihood ratio of elo1 against elo0, using the normal approximation
+         * of the generalized SPRT on the game scores.
+         */
+        double llr() {
+            double var = variance();
+            if (var == 0) {
+                return 0;
+            }
+            double s0 = expectedScore(elo0);
+            double s1 = expectedScore(elo1);
+            return games() * (s1 - s0) * (2 * score() - s0 - s1) / (2 * var);
+        }
+
+        synchronized String summary() {
+            long n = games();
+            double s = score();
+            double margin = n < 2 ? 0.5 : 1.96 * Math.sqrt(variance() / n);
+            String line = String.format("%s vs %s: +%d =%d -%d (%,d games), score %.1f%%, Elo %+.0f [%+.0f, %+.0f]",
+                    specs[first], specs[second], wins, draws, losses, n, 100 * s,
+                    elo(s), elo(s - margin), elo(s + margin));
+            if (elo1 > elo0) {
+                line += String.format(", LLR %.2f [%.2f, %.2f]%s", llr(), lowerBound, upperBound,
+                        verdict > 0 ? " H1 accepted" : verdict < 0 ? " H0 accepted" : "");
+            }
+            return line;
+        }
+    }
+
+    /**
+     * Constructs a tournament.
+     * specs the player specs; every pair of them plays
+     * maxGamePairs the most game pairs per pairing
+     * openingPlies random moves played before the players take over
+     * seed the run seed
+     * elo0 the SPRT null hypothesis, in Elo (first player of a pairing minus second)
+     * elo1 the SPRT alternative, in Elo; no SPRT if not above elo0
+     * alpha the SPRT false positive rate
+     * beta the SPRT false negative rate
+     */
+    public MancalaTournament(String[] specs, long maxGamePairs, int openingPlies, long seed,
+                             double elo0, double elo1, double alpha, double beta) {
+        if (specs.length < 2) {
+            throw new IllegalArgumentException("a tournament needs at least two players");
+        }
+        this.specs = specs;
+        this.maxGamePairs = maxGamePairs;
+        this.openingPlies = openingPlies;
+        this.seed = seed;
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.lowerBound = Math.log(beta / (1 - alpha));
+        this.upperBound = Math.log((1 - beta) / alpha);
+        int n = specs.length;
+        pairings = new int[n * (n - 1) / 2][];
+        results = new Pairing[pairings.length];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                pairings[k] = new int[] {i, j};
+                results[k++] = new Pairing(i, j);
+            }
+        }
+        // make sure the specs are valid before any thread starts
+        for (String spec : specs) {
+            MancalaPlayer.create(spec);
+        }
+    }
+
+    /**
+     * return the expected score of a player rated elo points above its opponent
+     */
+    static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    /**
+     * return the Elo difference that gives the expected score s
+     */
+    static double elo(double s) {
+        s = Math.max(1e-6, Math.min(1 - 1e-6, s));
+        return -400 * Math.log10(1 / s - 1);
+    }
+
+    /**
+     * Runs the tournament on the given number of threads, printing standings periodically.
+     * threads the number of worker threads
+     */
+    public void run(int threads) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            pool.execute(this::work);
+        }
+        pool.shutdown();
+        while (!pool.awaitTermination(REPORT_MILLIS, TimeUnit.MILLISECONDS)) {
+            report(start);
+        }
+        report(start);
+    }
+
+    private void report(long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long games = gamesPlayed.get();
+        System.out.printf("[%.1f s] %,d games (%,.1f games/s)%n", seconds, games, games / seconds);
+        for (Pairing p : results) {
+            System.out.println("  " + p.summary());
+        }
+    }
+
+    /**
+     * Worker loop: claims game pairs round by round (every pairing once per round,
+     * all from the same start) until the rounds run out. Pairings whose SPRT has
+     * reached a verdict are skipped.
+     */
+    private void work() {
+        MancalaPlayer[] players = new MancalaPlayer[specs.length];
+        for (int i = 0; i < specs.length; i++) {
+            players[i] = MancalaPlayer.create(specs[i]);
+        }
+        MancalaModel model = new MancalaModel();
+        int[] start = new int[14];
+        long total = maxGamePairs * pairings.length;
+        long g;
+        while ((g = nextGamePair.getAndIncrement()) < total) {
+            Pairing pairing = results[(int) (g % pairings.length)];
+            if (pairing.verdict != 0) {
+                continue;
+            }
+            long round = g / pairings.length;
+            boolean player1Turn = opening(model, round);
+            System.arraycopy(model.getBoard(), 0, start, 0, 14);
+            MancalaPlayer a = players[pairing.first];
+            MancalaPlayer b = players[pairing.second];
+            long gameSeed = MancalaSimulator.mix(seed ^ g);
+            int result1 = play(model, a, b, gameSeed);
+            model.loadPosition(start, player1Turn);
+            int result2 = -play(model, b, a, gameSeed);
+            pairing.add(result1, result2);
+            gamesPlayed.addAndGet(2);
+        }
+    }
+
+    /**
+     * Sets up the start of a round: 3 or 4 stones by round, then openingPlies
+     * random moves from the round's seed (fewer if they would end the game).
+     * return true if player 1 is to move
+     */
+    private boolean opening(MancalaModel model, long round) {
+        model.newGame(STONES[(int) (round % STONES.length)]);
+        SplittableRandom random = new SplittableRandom(MancalaSimulator.mix(seed + round));
+        for (int i = 0; i < openingPlies; i++) {
+            int first = model.isPlayer1Turn() ? 0 : 7;
+            int pit;
+            do {
+                pit = first + random.nextInt(6);
+            } while (model.getBoard()[pit] == 0);
+            long token = model.makeMove(pit);
+            if (model.isGameOver()) {
+                model.unmakeMove(token);
+                break;
+            }
+        }
+        boolean player1Turn = model.isPlayer1Turn();
+        model.loadPosition(model.getBoard().clone(), player1Turn);
+        return player1Turn;
+    }
+
+    /**
+     * Plays a game to the end from the model's position.
+     * return 1 if p1 (in the first seat) won, -1 if p2 won, 0 for a draw
+     */
+    private static int play(MancalaModel model, MancalaPlayer p1, MancalaPlayer p2, long gameSeed) {
+        p1.newGame(gameSeed);
+        p2.newGame(gameSeed ^ 0x5DEECE66DL);
+        while (!model.isGameOver()) {
+            MancalaPlayer player = model.isPlayer1Turn() ? p1 : p2;
+            model.makeMove(player.choosePit(model));
+        }
+        return Integer.signum(model.getFinalScore(true) - model.getFinalScore(false));
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        String[] players = null;
+        long pairs = 1000;
+        int openings = 2;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 151;
+        double elo0 = 0, elo1 = 0, alpha = 0.05, beta = 0.05;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-players": players = args[i + 1].split(","); break;
+                case "-pairs": pairs = Long.parseLong(args[i + 1]); break;
+                case "-openings": openings = Integer.parseInt(args[i + 1]); break;
+                case "-threads": threads = Integer.parseInt(args[i + 1]); break;
+                case "-seed": seed = Long.parseLong(args[i + 1]); break;
+                case "-sprt":
+                    String[] bounds = args[i + 1].split(",");
+                    elo0 = Double.parseDouble(bounds[0]);
+                    elo1 = Double.parseDouble(bounds[1]);
+                    break;
+                case "-alpha": alpha = Double.parseDouble(args[i + 1]); break;
+                case "-beta": beta = Double.parseDouble(args[i + 1]); break;
+                default: throw new IllegalArgumentException("unknown option: " + args[i]);
+            }
+        }
+        if (players == null) {
+            System.err.println("usage: java MancalaTournament -players spec,spec[,...] [-pairs n] [-openings plies]"
+                    + " [-threads n] [-seed n] [-sprt elo0,elo1] [-alpha a] [-beta b]");
+            return;
+        }
+        System.out.printf("Tournament of %d players, up to %,d game pairs per pairing, %d opening plies, %d threads%n",
+                players.length, pairs, openings, threads);
+        new MancalaTournament(players, pairs, openings, seed, elo0, elo1, alpha, beta).run(threads);
+    }
+}
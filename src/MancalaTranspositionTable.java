@@ -0,0 +1,166 @@
+/**
+ * The MancalaTranspositionTable class caches search results by position hash
+ * (see MancalaModel.getHash) so positions reached through different move orders
+ * are only searched once. The table is preallocated at a fixed capacity and is
+ * backed by two primitive long arrays, one for keys and one for packed entries.
+ * Entries are grouped in buckets of two: the first slot keeps the deepest result
+ * seen for its bucket (depth-preferred), the second takes whatever does not
+ * qualify for the first (always-replace).
+ *
+ * The table can be shared by several search threads without locks. Each slot's
+ * key is stored XORed with its entry, so a slot torn by two threads writing at
+ * once no longer matches its hash and simply reads as a miss. The statistics
+ * counters are not synchronized and are approximate while threads share the table.
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaTranspositionTable.java
+public class MancalaTranspositionTable {
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1;
+    public static final int UPPER_BOUND = 2;
+    // depth stored for results that were searched to the end of the game
+    public static final int SOLVED = 255;
+
+    // Entry layout: bits 0-31 score, 32-39 depth, 40-41 bound, 42-45 best pit + 1, 46 valid
+    private static final long VALID = 1L << 46;
+    private static final int BYTES_PER_SLOT = 16;
+
+    private final long[] keys;
+    private final long[] entries;
+    private final int bucketMask;
+    private long probes;
+    private long hits;
+    private long stores;
+    private long collisions;
+
+    /**
+     * Allocates a table that fits in the given number of megabytes. The number of
+     * buckets is rounded down to a power of two.
+     * megabytes the memory budget for the table
+     */
+    public MancalaTranspositionTable(int megabytes) {
+        long slots = Math.max(2, (long) megabytes * 1024 * 1024 / BYTES_PER_SLOT);
+        int buckets = Integer.highestOneBit((int) Math.min(slots / 2, 1 << 29));
+        keys = new long[buckets * 2];
+        entries = new long[buckets * 2];
+        bucketMask = buckets - 1;
+    }
+
+    /**
+     * Looks up a position.
+     * hash the position hash
+     * return the packed entry, or 0 if the position is not in the table
+     */
+    public long probe(long hash) {
+        probes++;
+        int slot = ((int) hash & bucketMask) << 1;
+        long entry = entries[slot];
+        if (entry != 0 && (keys[slot] ^ entry) == hash) {
+            hits++;
+            return entry;
+        }
+        entry = entries[slot + 1];
+        if (entry != 0 && (keys[slot + 1] ^ entry) == hash) {
+            hits++;
+            return entry;
+        }
+        return 0;
+    }
+
+    /**
+     * Stores a search result. The depth-preferred slot is replaced when it is empty,
+     * holds the same position, or holds a shallower result; otherwise the result goes
+     * into the always-replace slot.
+     * hash the position hash
+     * depth the remaining depth the score was searched to, or SOLVED
+     * score the score from the side to move's point of view
+     * bound EXACT, LOWER_BOUND or UPPER_BOUND
+     * bestPit the best pit found, or -1 if none
+     */
+    public void store(long hash, int depth, int score, int bound, int bestPit) {
+        stores++;
+        long entry = (score & 0xFFFFFFFFL) | ((long) depth << 32) | ((long) bound << 40)
+                | ((long) (bestPit + 1) << 42) | VALID;
+        int slot = ((int) hash & bucketMask) << 1;
+        long old = entries[slot];
+        boolean same = (keys[slot] ^ old) == hash;
+        if (old != 0 && !same && depth < depth(old)) {
+            slot++;
+            old = entries[slot];
+            same = (keys[slot] ^ old) == hash;
+        }
+        if (old != 0 && !same) {
+            collisions++;
+        }
+        keys[slot] = hash ^ entry;
+        entries[slot] = entry;
+    }
+
+    /**
+     * Empties the table and resets its statistics.
+     */
+    public void clear() {
+        java.util.Arrays.fill(keys, 0);
+        java.util.Arrays.fill(entries, 0);
+        probes = hits = stores = collisions = 0;
+    }
+
+    public static int score(long entry) { return (int) entry; }
+    public static int depth(long entry) { return (int) (entry >>> 32) & 0xFF; }
+    public static int bound(long entry) { return (int) (entry >>> 40) & 0x3; }
+    public static int bestPit(long entry) { return ((int) (entry >>> 42) & 0xF) - 1; }
+
+    /**
+     * return the number of entry slots (two per bucket)
+     */
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * return the memory used by the key and entry arrays, in bytes
+     */
+    public long getSizeBytes() {
+        return (long) keys.length * BYTES_PER_SLOT;
+    }
+
+    public long getProbes() { return probes; }
+    public long getHits() { return hits; }
+    public long getStores() { return stores; }
+
+    /**
+     * return the number of stores that evicted a different position
+     */
+    public long getCollisions() {
+        return collisions;
+    }
+
+    /**
+     * return hits divided by probes, 0 if nothing was probed yet
+     */
+    public double getHitRate() {
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+
+    /**
+     * Counts the used slots. This scans the whole table, so call it for reporting only.
+     * return the fraction of slots holding an entry
+     */
+    public double getOccupancy() {
+        long used = 0;
+        for (long entry : entries) {
+            if (entry != 0) {
+                used++;
+            }
+        }
+        return (double) used / entries.length;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TT %d slots (%d MB): hit rate %.1f%%, %d probes, %d stores, %d collisions, %.1f%% full",
+                getCapacity(), getSizeBytes() >> 20, getHitRate() * 100, probes, stores, collisions,
+                getOccupancy() * 100);
+    }
+}
@@ -2,6 +2,15 @@
  * The MancalaView class serves as the visual component of the Mancala game,
  * responsible for drawing the board, pits, stores, stones, and status messages.
  * It observes changes in the MancalaModel and updates the display accordingly.
+ *
+ * Moves can be animated: the view keeps its own copy of the board as shown and
+ * sows each move into it one stone at a time, timed by a MancalaFrameClock.
+ * The model is updated right away; moves that arrive while one is still being
+ * sown are queued, and so are clicks, which are played once the board catches up.
+ *
+ * The layout follows the model's pit count. Pits shrink from PIT_W down to
+ * MIN_PIT_W to fit the width, and each paint only visits the columns inside the
+ * clip, so the cost of a move or a frame does not grow with the board.
  * @author Kaydon Do, Rongjie Mai, Sarah Hoang
  * @version 1.0
  */
@@ -10,9 +19,12 @@ import javax.swing.*;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.Shape;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -20,12 +32,75 @@ public class MancalaView extends JPanel implements ChangeListener {
     private final MancalaModel model;
     private MancalaBoardStyle style;
 
-    private final List<Rectangle> pitBounds = new ArrayList<>(14); // click regions
+    private final List<Rectangle> pitBounds; // click regions
+
+    // Board geometry, from the model
+    private final int pitsPerSide;
+    private final int slotCount;
+    private final String[] pitLabels;
 
     // Layout constants
     private static final int PAD = 24;
     private static final int PIT_W = 70, PIT_H = 70, STORE_W = 70, STORE_H = 160;
-    private static final int GAP = 16;
+    private static final int MIN_PIT_W = 28;
+    private static final int GAP = 16, MIN_GAP = 6;
+    // left edge and width of a pit column in the current layout
+    private int columnX, columnW;
+    private static final int STATUS_H = 30; // height of the turn indicator strip at the bottom
+    private static final String STATUS_P1 = "Turn: Player 1's Turn   (Undo: press button)";
+    private static final String STATUS_P2 = "Turn: Player 2's Turn   (Undo: press button)";
+    private static final String[] PIT_LABELS = {"A1", "A2", "A3", "A4", "A5", "A6", "",
+            "B1", "B2", "B3", "B4", "B5", "B6", ""};
+    private static final String[] COUNT_LABELS = new String[100];
+    static {
+        for (int i = 0; i < COUNT_LABELS.length; i++) {
+            COUNT_LABELS[i] = String.valueOf(i);
+        }
+    }
+
+    /**
+     * How fast sown stones travel from slot to slot. INSTANT shows each move at once.
+     */
+    public enum AnimationSpeed {
+        INSTANT("Instant", 0), FAST("Fast", 60), NORMAL("Normal", 140), SLOW("Slow", 280);
+
+        private final String label;
+        private final long stepNanos;
+
+        AnimationSpeed(String label, long stepMillis) {
+            this.label = label;
+            this.stepNanos = stepMillis * 1_000_000L;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+    private static final int STONE_D = 12; // stone diameter
+    private static final long MAX_MOVE_NANOS = 2_000_000_000L; // long sowings are sped up to fit
+
+    // Sowing animation: the board as shown, the moves still to sow and clicks made meanwhile
+    private final int[] shown;
+    private final MancalaFrameClock clock = new MancalaFrameClock(60, this::animationFrame);
+    private AnimationSpeed speed = AnimationSpeed.NORMAL;
+    private boolean gameOverDialog = true;
+    private final long[] pendingMoves = new long[64];
+    private int movesHead, movesCount;
+    private final int[] pendingClicks = new int[8];
+    private int clicksHead, clicksCount;
+    private boolean animating;
+    private long sowing; // undo token of the move being sown
+    private int stonesLeft, fromSlot, toSlot;
+    private boolean moverIsPlayer1;
+    private long stepStart, stepNanos;
+    private int stoneX = -1, stoneY; // top-left of the travelling stone; stoneX < 0 when none
+
+    // Static board (background, pits, stores, labels) drawn once per style, size and scale
+    private BufferedImage boardLayer;
+    private MancalaBoardStyle layerStyle;
+    private int layerWidth, layerHeight;
+    private double layerScale;
     /**
      * Constructs a new MancalaView for the given model and style.
      * The constructor computes click regions, sets the background color,
@@ -36,16 +111,35 @@ public class MancalaView extends JPanel implements ChangeListener {
     public MancalaView(MancalaModel model, MancalaBoardStyle style) {
         this.model = model;
         this.style = style;
+        pitsPerSide = model.getPitsPerSide();
+        slotCount = model.getSlotCount();
+        pitBounds = new ArrayList<>(slotCount);
+        pitLabels = model.isStandard() ? PIT_LABELS : variantLabels(pitsPerSide);
+        shown = new int[slotCount];
+        System.arraycopy(model.getBoard(), 0, shown, 0, slotCount);
         setBackground(style.boardColor());
-        setPreferredSize(new Dimension(2 * PAD + STORE_W + GAP + 6 * (PIT_W + GAP) + STORE_W, 260));
+        int pitW = pitsPerSide <= MancalaModel.STANDARD_PITS ? PIT_W : MIN_PIT_W;
+        int gap = pitsPerSide <= MancalaModel.STANDARD_PITS ? GAP : MIN_GAP;
+        setPreferredSize(new Dimension(2 * PAD + 2 * (STORE_W + GAP) + pitsPerSide * (pitW + gap) - gap, 260));
 
-        // Build clickable rects in index order: 0..5(A pits), 6(A store), 7..12(B pits), 13(B store)
+        // Build clickable rects in index order: A pits, A store, B pits, B store
         recomputeBounds();
+        addComponentListener(new ComponentAdapter() {
+            public void componentResized(ComponentEvent e) {
+                recomputeBounds();
+                repaint();
+            }
+        });
 
         addMouseListener(new MouseAdapter() {
             public void mousePressed(MouseEvent e) {
                 int idx = hitTest(e.getX(), e.getY());
-                if (idx >= 0 && model.isLegalPick(idx)) {
+                if (idx < 0) {
+                    return;
+                }
+                if (animating) {
+                    queueClick(idx);
+                } else if (model.isLegalPick(idx)) {
                     model.move(idx);
                 }
             }
@@ -53,39 +147,95 @@ public class MancalaView extends JPanel implements ChangeListener {
     }
      /**
      * Sets the board's visual style and repaints the view.
+     * The cached board layer is dropped and redrawn in the new style.
      * style the MancalaBoardStyle to apply
      */
     public void setStyle(MancalaBoardStyle style) {
         this.style = style;
+        boardLayer = null; // redrawn in the new style on the next paint
         setBackground(style.boardColor());
         repaint();
+    }
+    /**
+     * Sets how fast moves are animated. Switching to INSTANT finishes any
+     * animation in progress at once.
+     * speed the new animation speed
+     */
+    public void setAnimationSpeed(AnimationSpeed speed) {
+        this.speed = speed;
+        if (speed == AnimationSpeed.INSTANT && clearAnimation()) {
+            syncShown();
+            drainClicks();
+            showWinnerIfOver();
+        }
+    }
+    public MancalaBoardStyle getStyle() {
+        return style;
+    }
+    public AnimationSpeed getAnimationSpeed() {
+        return speed;
+    }
+    /**
+     * Sets whether the view announces the winner when the game ends. Views that only
+     * display positions, such as a replay, turn this off; it also leaves the final
+     * board unswept.
+     * show true to show the game over dialog
+     */
+    public void setGameOverDialog(boolean show) {
+        this.gameOverDialog = show;
+    }
+    /**
+     * return labels A1..An and B1..Bn, in slot order, for a board of n pits per side
+     */
+    private static String[] variantLabels(int pits) {
+        String[] labels = new String[2 * pits + 2];
+        for (int i = 0; i < pits; i++) {
+            labels[i] = "A" + (i + 1);
+            labels[pits + 1 + i] = "B" + (i + 1);
+        }
+        labels[pits] = labels[2 * pits + 1] = "";
+        return labels;
     }
      /**
      * Recomputes the rectangular hit-boxes for pits and stores
-     * based on the layout constants. The indices match the model's
-     * pit ordering: 0–5 Player A pits, 6 A store, 7–12 Player B pits, 13 B store.
+     * based on the layout constants and the current width. The indices match
+     * the model's pit ordering: with n pits per side, 0..n-1 Player A pits,
+     * n A store, n+1..2n Player B pits, 2n+1 B store. Pits are PIT_W wide when
+     * they fit and shrink down to MIN_PIT_W otherwise.
      */
     private void recomputeBounds() {
         pitBounds.clear();
-        int x0 = PAD + STORE_W + GAP;
-        int yTop = PAD, yBottom = PAD + STORE_H - PIT_H;
+        int n = pitsPerSide;
+        int width = getWidth() > 0 ? getWidth() : getPreferredSize().width;
+        int available = width - 2 * PAD - 2 * (STORE_W + GAP);
+        int gap = GAP, pitW = PIT_W;
+        if (n * (PIT_W + GAP) - GAP > available) {
+            gap = MIN_GAP;
+            pitW = Math.max(MIN_PIT_W, Math.min(PIT_W, (available + gap) / n - gap));
+        }
+        int pitH = Math.min(PIT_H, pitW);
+        columnX = PAD + STORE_W + GAP;
+        columnW = pitW + gap;
+        int x0 = columnX;
+        int yTop = PAD, yBottom = PAD + STORE_H - pitH;
 
-        // A pits (0..5) left->right along bottom row
-        for (int i = 0; i < 6; i++) {
-            int x = x0 + i * (PIT_W + GAP);
-            pitBounds.add(new Rectangle(x, yBottom, PIT_W, PIT_H));
+        // A pits (0..n-1) left->right along bottom row
+        for (int i = 0; i < n; i++) {
+            int x = x0 + i * columnW;
+            pitBounds.add(new Rectangle(x, yBottom, pitW, pitH));
         }
-        // A store (6) at left
-        int rightX = x0 + 6 * (PIT_W + GAP);
+        // A store (n) at right
+        int rightX = x0 + n * columnW - gap + GAP;
         pitBounds.add(new Rectangle(rightX, PAD, STORE_W, STORE_H));
 
-        // B pits (7..12) right->left along top row (note index order is 7..12)
-        for (int i = 0; i < 6; i++) {
-            int x = x0 + (5 - i) * (PIT_W + GAP);
-            pitBounds.add(new Rectangle(x, yTop, PIT_W, PIT_H));
+        // B pits (n+1..2n) right->left along top row
+        for (int i = 0; i < n; i++) {
+            int x = x0 + (n - 1 - i) * columnW;
+            pitBounds.add(new Rectangle(x, yTop, pitW, pitH));
         }
-        // B store (13) at left
+        // B store (2n+1) at left
         pitBounds.add(new Rectangle(PAD, PAD, STORE_W, STORE_H));
+        boardLayer = null; // the pits moved
     }
     /**
      * Determines which pit or store a user clicked by checking mouse coordinates
@@ -101,18 +251,235 @@ public class MancalaView extends JPanel implements ChangeListener {
         return -1;
     }
     /**
-     * Updates the view when the model state changes. If the game is over,
-     * displays the winner using a message dialog.
+     * Updates the view when the model state changes. Moves are queued for the
+     * sowing animation unless the speed is INSTANT; anything else (a new game,
+     * an undo, a history jump) cancels the animation and shows the model's board.
+     * If the game is over, displays the winner using a message dialog.
      * evt the ChangeEvent fired by the model
      */
     @Override
     public void stateChanged(ChangeEvent evt) {
-        repaint();
-        if (model.isGameOver()) {
-            JOptionPane.showMessageDialog(this, model.getWinner(),
+        MancalaChangeEvent e = evt instanceof MancalaChangeEvent ? (MancalaChangeEvent) evt : null;
+        if (e != null && e.getKind() == MancalaChangeEvent.Kind.MOVE && speed != AnimationSpeed.INSTANT) {
+            queueMove(e.getMove());
+            return;
+        }
+        boolean wasAnimating = clearAnimation();
+        if (e != null && e.getKind() != MancalaChangeEvent.Kind.MOVE) {
+            clicksCount = 0; // clicks were meant for the board before the change
+        }
+        if (e != null && !wasAnimating && !model.isStandard()) {
+            // larger boards have no changed-slot mask; repaint the slots that differ
+            syncShown();
+            repaint(0, getHeight() - STATUS_H, getWidth(), STATUS_H);
+        } else {
+            System.arraycopy(model.getBoard(), 0, shown, 0, slotCount);
+            if (e != null && !wasAnimating) {
+                repaintChanged(e);
+            } else {
+                repaint();
+            }
+        }
+        showWinnerIfOver();
+    }
+    /**
+     * Shows the game over dialog if the game has ended.
+     */
+    private void showWinnerIfOver() {
+        if (gameOverDialog && model.isGameOver()) {
+            String winner = model.getWinner();
+            syncShown(); // the sweep emptied every pit
+            JOptionPane.showMessageDialog(this, winner,
                     "Game Over", JOptionPane.INFORMATION_MESSAGE);
         }
     }
+    /**
+     * Adds a move to the animation queue and starts sowing it if nothing else is.
+     * If the queue is full the view gives up animating and shows the model's board.
+     * token the move's undo token
+     */
+    private void queueMove(long token) {
+        if (movesCount == pendingMoves.length) {
+            clearAnimation();
+            syncShown();
+            showWinnerIfOver();
+            return;
+        }
+        pendingMoves[(movesHead + movesCount) % pendingMoves.length] = token;
+        movesCount++;
+        if (!animating) {
+            startNextMove(System.nanoTime());
+            clock.start();
+        }
+    }
+    /**
+     * Remembers a click made while a move is being sown. Clicks beyond the
+     * queue's capacity are dropped.
+     */
+    private void queueClick(int slot) {
+        if (clicksCount < pendingClicks.length) {
+            pendingClicks[(clicksHead + clicksCount) % pendingClicks.length] = slot;
+            clicksCount++;
+        }
+    }
+    /**
+     * Plays queued clicks, skipping the ones that are not legal on the current
+     * board, until one makes a move (which starts a new animation) or none are left.
+     */
+    private void drainClicks() {
+        while (clicksCount > 0 && !animating) {
+            int slot = pendingClicks[clicksHead];
+            clicksHead = (clicksHead + 1) % pendingClicks.length;
+            clicksCount--;
+            if (model.isLegalPick(slot)) {
+                model.move(slot);
+            }
+        }
+    }
+    /**
+     * Takes the next queued move and picks up its stones.
+     * now the time its first stone starts travelling
+     */
+    private void startNextMove(long now) {
+        sowing = pendingMoves[movesHead];
+        movesHead = (movesHead + 1) % pendingMoves.length;
+        movesCount--;
+        animating = true;
+        fromSlot = MancalaModel.tokenPit(sowing);
+        stonesLeft = MancalaModel.tokenStones(sowing);
+        moverIsPlayer1 = fromSlot < pitsPerSide;
+        toSlot = model.getNextSlot(fromSlot, moverIsPlayer1);
+        stepNanos = Math.min(speed.stepNanos, MAX_MOVE_NANOS / stonesLeft);
+        stepStart = now;
+        shown[fromSlot] = 0;
+        repaintSlot(fromSlot);
+    }
+    /**
+     * Runs on the EDT once per clock tick. Drops every stone whose step is over,
+     * which may finish this move and start the next one, then moves the
+     * travelling stone to where it should be now.
+     */
+    private void animationFrame() {
+        long now = System.nanoTime();
+        while (animating && now - stepStart >= stepNanos) {
+            shown[toSlot]++;
+            repaintSlot(toSlot);
+            stepStart += stepNanos;
+            if (--stonesLeft > 0) {
+                fromSlot = toSlot;
+                toSlot = model.getNextSlot(toSlot, moverIsPlayer1);
+            } else {
+                finishMove();
+            }
+        }
+        moveStone(now);
+    }
+    /**
+     * Applies the capture of the move just sown, then starts the next queued move,
+     * or stops the clock, plays queued clicks and checks for the end of the game.
+     */
+    private void finishMove() {
+        if (MancalaModel.isCapture(sowing)) {
+            int store = model.getStore(moverIsPlayer1);
+            int across = model.getOpposite(toSlot);
+            shown[store] += MancalaModel.capturedStones(sowing) + 1;
+            shown[toSlot] = 0;
+            shown[across] = 0;
+            repaintSlot(store);
+            repaintSlot(toSlot);
+            repaintSlot(across);
+        }
+        if (movesCount > 0) {
+            startNextMove(stepStart);
+            return;
+        }
+        clearAnimation();
+        syncShown();
+        drainClicks();
+        if (!animating) {
+            showWinnerIfOver();
+        }
+    }
+    /**
+     * Stops the animation and forgets the queued moves (queued clicks are kept).
+     * return true if anything was being animated
+     */
+    private boolean clearAnimation() {
+        boolean active = animating;
+        animating = false;
+        movesCount = 0;
+        clock.stop();
+        moveStone(0);
+        return active;
+    }
+    /**
+     * Copies the model's board into the shown board, repainting the slots that differ.
+     */
+    private void syncShown() {
+        int[] b = model.getBoard();
+        for (int i = 0; i < slotCount; i++) {
+            if (shown[i] != b[i]) {
+                shown[i] = b[i];
+                repaintSlot(i);
+            }
+        }
+    }
+    /**
+     * Places the travelling stone between the centers of the slot it left and the
+     * slot it is heading for, by how much of the step has passed, and repaints
+     * where it was and where it is. Hides the stone when nothing is animating.
+     * now the current System.nanoTime
+     */
+    private void moveStone(long now) {
+        int x = -1, y = 0;
+        if (animating) {
+            double t = Math.min(1, Math.max(0, (now - stepStart) / (double) stepNanos));
+            Rectangle from = pitBounds.get(fromSlot);
+            Rectangle to = pitBounds.get(toSlot);
+            double fx = from.getCenterX(), fy = from.getCenterY();
+            x = (int) (fx + (to.getCenterX() - fx) * t) - STONE_D / 2;
+            y = (int) (fy + (to.getCenterY() - fy) * t) - STONE_D / 2;
+        }
+        if (x == stoneX && y == stoneY) {
+            return;
+        }
+        if (stoneX >= 0) {
+            repaint(stoneX - 1, stoneY - 1, STONE_D + 2, STONE_D + 2);
+        }
+        stoneX = x;
+        stoneY = y;
+        if (stoneX >= 0) {
+            repaint(stoneX - 1, stoneY - 1, STONE_D + 2, STONE_D + 2);
+        }
+    }
+    /**
+     * Repaints one pit or store, with one extra pixel around it for the outline stroke.
+     */
+    private void repaintSlot(int slot) {
+        Rectangle r = pitBounds.get(slot);
+        repaint(r.x - 1, r.y - 1, r.width + 2, r.height + 2);
+    }
+    /**
+     * Repaints only the pits and stores the event says changed, plus the status
+     * line when the turn switched. Swing merges these requests into one dirty region,
+     * so several moves arriving before the next paint still cost a single paint.
+     * e the MancalaChangeEvent fired by the model
+     */
+    private void repaintChanged(MancalaChangeEvent e) {
+        int slots = e.getChangedSlots();
+        if (slots == MancalaChangeEvent.ALL_SLOTS) {
+            repaint();
+            return;
+        }
+        for (int i = 0; i < pitBounds.size(); i++) {
+            if ((slots & (1 << i)) != 0) {
+                repaintSlot(i);
+            }
+        }
+        if (e.isTurnSwitched()) {
+            repaint(0, getHeight() - STATUS_H, getWidth(), STATUS_H);
+        }
+    }
     /**
      * Paints the Mancala board, including pits, stores, stones, labels,
      * and the active player's turn indicator.
@@ -120,44 +487,113 @@ public class MancalaView extends JPanel implements ChangeListener {
      */
     @Override
     protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
+        long started = MancalaMetrics.start();
         Graphics2D g2 = (Graphics2D) g.create();
+        // the static board comes from the cached layer; only the dynamic parts are drawn per frame
+        ensureBoardLayer(g2);
+        g2.drawImage(boardLayer, 0, 0, layerWidth, layerHeight, null);
         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
-        int[] b = model.getBoard();
-
-        // Draw stores
-        drawStore(g2, pitBounds.get(MancalaModel.A_STORE), 'A', b[MancalaModel.A_STORE]);
-        drawStore(g2, pitBounds.get(MancalaModel.B_STORE), 'B', b[MancalaModel.B_STORE]);
+        int[] b = shown;
+        // only redraw what lies in the dirty region Swing asked for
+        Rectangle clip = g2.getClipBounds();
 
-        // Draw pits + labels (A1..A6 bottom; B1..B6 top)
-        // A pits indices 0..5 bottom
-        for (int i = 0; i < 6; i++) {
-            String label = "A" + (i + 1);
-            drawPit(g2, pitBounds.get(i), label, b[i]);
+        g2.setColor(style.stoneColor());
+        g2.setFont(style.labelFont());
+        // pit columns under the clip: column c holds A's pit c and, across from it, B's pit 2n - c
+        int firstColumn = 0, lastColumn = pitsPerSide - 1;
+        if (clip != null) {
+            firstColumn = Math.max(0, (clip.x - 1 - columnX) / columnW);
+            lastColumn = Math.min(lastColumn, (clip.x + clip.width + 1 - columnX) / columnW);
         }
-        // B pits indices 7..12 top BUT label order is B1 on the right visually;
-        // we keep simple A-left->right and B-left->right labels (matches our rectangles).
-        for (int i = 7; i <= 12; i++) {
-            String label = "B" + (i - 6);
-            drawPit(g2, pitBounds.get(i), label, b[i]);
+        for (int c = firstColumn; c <= lastColumn; c++) {
+            int across = 2 * pitsPerSide - c;
+            if (needsPaint(clip, c)) {
+                drawStones(g2, pitBounds.get(c), b[c]);
+            }
+            if (needsPaint(clip, across)) {
+                drawStones(g2, pitBounds.get(across), b[across]);
+            }
+        }
+        for (int store = pitsPerSide; store < slotCount; store += pitsPerSide + 1) {
+            if (needsPaint(clip, store)) {
+                drawStones(g2, pitBounds.get(store), b[store]);
+            }
+        }
+        if (stoneX >= 0 && (clip == null || clip.intersects(stoneX, stoneY, STONE_D, STONE_D))) {
+            g2.fillOval(stoneX, stoneY, STONE_D, STONE_D);
         }
 
         // Turn indicator
-        g2.setColor(Color.DARK_GRAY);
-        g2.setFont(style.labelFont());
-        g2.drawString("Turn: " + model.getTurn() + "   (Undo: press button)", PAD, getHeight() - 10);
+        if (clip == null || clip.y + clip.height > getHeight() - STATUS_H) {
+            g2.setColor(Color.DARK_GRAY);
+            g2.drawString(model.isPlayer1Turn() ? STATUS_P1 : STATUS_P2, PAD, getHeight() - 10);
+        }
 
         g2.dispose();
+        if (started != 0) {
+            MancalaMetrics.repainted(started, clip == null ? getWidth() : clip.width,
+                    clip == null ? getHeight() : clip.height);
+        }
     }
     /**
-     * Draws a single pit at the specified bounds with its label and number of stones.
+     * Rebuilds the cached board layer if there is none yet, or if the style,
+     * the component size or the display scale changed since it was drawn.
+     * g2 the Graphics2D the layer will be drawn into
+     */
+    private void ensureBoardLayer(Graphics2D g2) {
+        int w = Math.max(1, getWidth());
+        int h = Math.max(1, getHeight());
+        double scale = g2.getTransform().getScaleX();
+        if (boardLayer != null && layerStyle == style && layerWidth == w && layerHeight == h
+                && layerScale == scale) {
+            return;
+        }
+        int pw = (int) Math.ceil(w * scale);
+        int ph = (int) Math.ceil(h * scale);
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        boardLayer = gc != null ? gc.createCompatibleImage(pw, ph)
+                : new BufferedImage(pw, ph, BufferedImage.TYPE_INT_RGB);
+        Graphics2D lg = boardLayer.createGraphics();
+        lg.scale(scale, scale);
+        lg.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        lg.setColor(style.boardColor());
+        lg.fillRect(0, 0, w, h);
+
+        // Draw stores
+        drawStore(lg, pitBounds.get(model.getStore(true)), "A");
+        drawStore(lg, pitBounds.get(model.getStore(false)), "B");
+        // Draw pits + labels (A1..An bottom; B1..Bn top)
+        // B pits top BUT label order is B1 on the right visually;
+        // we keep simple A-left->right and B-left->right labels (matches our rectangles).
+        for (int i = 0; i < slotCount - 1; i++) {
+            if (i != pitsPerSide) {
+                drawPit(lg, pitBounds.get(i), pitLabels[i]);
+            }
+        }
+        lg.dispose();
+        layerStyle = style;
+        layerWidth = w;
+        layerHeight = h;
+        layerScale = scale;
+    }
+    /**
+     * return true if the slot's bounds (with its outline) overlap the clip
+     */
+    private boolean needsPaint(Rectangle clip, int slot) {
+        if (clip == null) {
+            return true;
+        }
+        Rectangle r = pitBounds.get(slot);
+        return clip.intersects(r.x - 1, r.y - 1, r.width + 2, r.height + 2);
+    }
+    /**
+     * Draws a single empty pit at the specified bounds with its label.
      * g2 the Graphics2D context
      * r the rectangle representing the pit region
      * label the text label (A1..A6 or B1..B6)
-     * stones the number of stones to draw inside the pit
      */
-    private void drawPit(Graphics2D g2, Rectangle r, String label, int stones){
+    private void drawPit(Graphics2D g2, Rectangle r, String label){
         g2.setColor(style.pitColor());
         Shape s = style.pitShape(r.x, r.y, r.width, r.height);
         g2.fill(s);
@@ -168,19 +604,16 @@ public class MancalaView extends JPanel implements ChangeListener {
         g2.setFont(style.labelFont());
         int labelWidth = g2.getFontMetrics().stringWidth(label);
         int labelX = r.x + (r.width - labelWidth) / 2;
-        g2.drawString(label, labelX, r.y + 18);
-
-        // stones (simple small circles)
-        drawStones(g2, r, stones);
+        // shrunken pits have no room inside, so their labels go just above them
+        g2.drawString(label, labelX, r.height < PIT_H ? r.y - 4 : r.y + 18);
     }
     /**
-     * Draws a Mancala store with its label ('A' or 'B') and stone count.
+     * Draws an empty Mancala store with its label ('A' or 'B').
      * g2 the Graphics2D context
      * r the rectangle representing the store region
-     * who the store label ('A' for Player 1, 'B' for Player 2)
-     * stones number of stones in the store
+     * who the store label ("A" for Player 1, "B" for Player 2)
      */
-    private void drawStore(Graphics2D g2, Rectangle r, char who, int stones){
+    private void drawStore(Graphics2D g2, Rectangle r, String who){
         g2.setColor(style.storeColor());
         Shape s = style.storeShape(r.x, r.y, r.width, r.height);
         g2.fill(s);
@@ -188,24 +621,22 @@ public class MancalaView extends JPanel implements ChangeListener {
         g2.draw(s);
 
         g2.setFont(style.labelFont());
-        g2.drawString(String.valueOf(who), r.x + r.width/2 - 4, r.y + 16);
-
-        drawStones(g2, r, stones);
+        g2.drawString(who, r.x + r.width/2 - 4, r.y + 16);
     }
     /**
      * Draws stones inside a pit or store. For small counts (≤ 6), stones are drawn 
      * as circular markers arranged in rows. For larger counts, the total number is 
-     * displayed as text instead to avoid cluttering the pit visually.
+     * displayed as text instead to avoid cluttering the pit visually, and so are
+     * the stones of pits shrunk too small to hold them.
+     * The caller sets the stone color and label font.
      * g2 the Graphics2D context
      * r is the rectangle representing the pit or store region
      * n is the number of stones to draw
      */
     private void drawStones(Graphics2D g2, Rectangle r, int n){
-        g2.setColor(style.stoneColor());
-        int d = 12, pad = 5;
-        if(n <= 6) {
+        int d = STONE_D, pad = 5;
+        if(n <= 6 && r.height >= PIT_H) {
             // draw small circles for each stone
-            int cols = Math.max(1, (r.width - pad)/(d+pad));
             int x = r.x + pad, y = r.y + 24;
             for (int i=0;i<n;i++){
                 g2.fillOval(x, y, d, d);
@@ -218,8 +649,8 @@ public class MancalaView extends JPanel implements ChangeListener {
             }
         } else {
             // too many stones — draw just the count
-            g2.setFont(style.labelFont());
-            g2.drawString(String.valueOf(n), r.x + r.width/2 - 4, r.y + 40);
+            String count = n < COUNT_LABELS.length ? COUNT_LABELS[n] : String.valueOf(n);
+            g2.drawString(count, r.x + r.width/2 - 4, r.height < PIT_H ? r.y + r.height/2 + 5 : r.y + 40);
         }
 
     }
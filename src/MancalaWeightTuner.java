@@ -0,0 +1,423 @@
+/**
+ * The MancalaWeightTuner class fits the MancalaWeights evaluation to self-play
+ * games. Every position of every game becomes a training example: its features
+ * (MancalaWeights.extract) labelled with how the game ended for the side to
+ * move (1 win, 0.5 draw, 0 loss). The weights are fitted by logistic regression
+ * with mini-batch gradient descent (Adam).
+ *
+ * Games are streamed from game record archives (see MancalaSimulator -record) a
+ * chunk at a time, so memory stays bounded however large the archives are:
+ *   1. the reader decodes games into a fixed moves buffer until the chunk holds
+ *      chunkPositions positions;
+ *   2. worker threads replay the chunk's games in parallel and write their
+ *      features and labels into preallocated primitive arrays, each game into
+ *      its own slice;
+ *   3. the training positions are shuffled and split into mini-batches; for
+ *      each batch every worker sums the gradient over its share, and the
+ *      partial gradients are added up and applied in one step;
+ *   4. every validateEvery-th game is held out and scored with the current
+ *      weights, which gives the validation loss reported after each epoch.
+ * Each epoch streams the archives again from the start. Only games played to the
+ * end can be labelled, so games whose replay does not reach the end (abandoned
+ * games the GUI recorder writes as unfinished) are skipped, as are games too long
+ * to fit in one chunk; the epoch report counts both.
+ * Usage: java MancalaWeightTuner [-epochs n] [-batch n] [-rate x] [-threads n]
+ *        [-chunk n] [-validate n] [-seed n] [-out file] archive...
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaWeightTuner.java
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class MancalaWeightTuner implements AutoCloseable {
+    private static final int F = MancalaWeights.COUNT;
+    private static final double BETA1 = 0.9, BETA2 = 0.999, EPSILON = 1e-8;
+
+    private final int threads;
+    private final int batchSize;
+    private final double rate;
+    private final int chunkPositions;
+    private final int validateEvery;
+    private final SplittableRandom random;
+    private final ExecutorService pool;
+
+    // the chunk: decoded games and the positions extracted from them
+    private final byte[] moves;
+    private final int[] gameMoves;
+    private final int[] gameStones;
+    private final int[] gamePosition;
+    private final boolean[] gameHeldOut;
+    private final boolean[] gameFinished;
+    private int games;
+    private int positions;
+    private final float[] features;
+    private final float[] labels;
+    private final int[] training;
+    private final int[] heldOut;
+    private int trainingCount, heldOutCount;
+    private long gameNumber;
+
+    // the fit
+    private final double[] weights = new double[F];
+    private final double[] moment = new double[F];
+    private final double[] velocity = new double[F];
+    private long step;
+    // per worker: F gradient sums, then loss sum, examples, correct predictions, decided examples
+    private final double[][] partial;
+    private int batchFrom, batchTo;
+    private final List<Callable<Void>> extractTasks = new ArrayList<>();
+    private final List<Callable<Void>> gradientTasks = new ArrayList<>();
+    private final List<Callable<Void>> validateTasks = new ArrayList<>();
+
+    // epoch totals
+    private double trainLoss, validationLoss;
+    private long trainExamples, validationExamples, validationCorrect, validationDecided;
+    private long unfinishedGames, unfinishedPositions, longGames;
+
+    /**
+     * Constructs a tuner.
+     * threads the number of worker threads
+     * batchSize the positions per gradient step
+     * rate the Adam step size
+     * chunkPositions the positions held in memory at once
+     * validateEvery hold out every n-th game for validation, 0 for none
+     * seed the shuffling seed
+     */
+    public MancalaWeightTuner(int threads, int batchSize, double rate, int chunkPositions, int validateEvery, long seed) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1: " + threads);
+        }
+        if (chunkPositions < 4096) {
+            throw new IllegalArgumentException("chunk must hold at least 4096 positions: " + chunkPositions);
+        }
+        this.threads = threads;
+        this.batchSize = batchSize;
+        this.rate = rate;
+        this.chunkPositions = chunkPositions;
+        this.validateEvery = validateEvery;
+        this.random = new SplittableRandom(seed);
+        pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "mancala-tuner");
+            t.setDaemon(true);
+            return t;
+        });
+        moves = new byte[chunkPositions];
+        gameMoves = new int[chunkPositions];
+        gameStones = new int[chunkPositions];
+        gamePosition = new int[chunkPositions + 1];
+        gameHeldOut = new boolean[chunkPositions];
+        gameFinished = new boolean[chunkPositions];
+        features = new float[chunkPositions * F];
+        labels = new float[chunkPositions];
+        training = new int[chunkPositions];
+        heldOut = new int[chunkPositions];
+        partial = new double[threads][F + 4];
+        for (int t = 0; t < threads; t++) {
+            final int worker = t;
+            final MancalaModel model = new MancalaModel();
+            extractTasks.add(() -> {
+                for (int g = worker; g < games; g += threads) {
+                    extractGame(model, g);
+                }
+                return null;
+            });
+            gradientTasks.add(() -> {
+                int share = (batchTo - batchFrom + threads - 1) / threads;
+                int from = batchFrom + worker * share;
+                accumulate(partial[worker], training, from, Math.min(batchTo, from + share), true);
+                return null;
+            });
+            validateTasks.add(() -> {
+                int share = (heldOutCount + threads - 1) / threads;
+                int from = worker * share;
+                accumulate(partial[worker], heldOut, from, Math.min(heldOutCount, from + share), false);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Starts the fit from the given weights instead of zeros.
+     */
+    public void setInitialWeights(MancalaWeights initial) {
+        System.arraycopy(initial.getWeights(), 0, weights, 0, F);
+    }
+
+    /**
+     * Runs one epoch over the archives and prints its losses.
+     * archives the game record archives to read
+     */
+    public void epoch(List<Path> archives) throws IOException, InterruptedException {
+        trainLoss = validationLoss = 0;
+        trainExamples = validationExamples = validationCorrect = validationDecided = 0;
+        gameNumber = 0;
+        unfinishedGames = unfinishedPositions = longGames = 0;
+        long start = System.nanoTime();
+        for (Path archive : archives) {
+            try (MancalaRecordReader reader = MancalaRecordReader.open(archive)) {
+                boolean more = reader.next();
+                while (more) {
+                    more = fillChunk(reader);
+                    processChunk();
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long examples = trainExamples + validationExamples;
+        System.out.printf("%,d positions in %.1f s (%,.0f positions/min): train loss %.5f, "
+                        + "validation loss %.5f, accuracy %.2f%% | %s%n",
+                examples, seconds, examples / seconds * 60, trainLoss / Math.max(1, trainExamples),
+                validationLoss / Math.max(1, validationExamples),
+                100.0 * validationCorrect / Math.max(1, validationDecided), getWeights());
+        if (unfinishedGames > 0 || longGames > 0) {
+            System.out.printf("  skipped %,d unfinished games (%,d positions) and %,d games longer than a chunk%n",
+                    unfinishedGames, unfinishedPositions, longGames);
+        }
+    }
+
+    /**
+     * Decodes games from the reader into the chunk until the next game does not
+     * fit. Games longer than a whole chunk are skipped rather than cut short. The
+     * reader is positioned on an undecoded game when this is called.
+     * return true if the reader still holds a game for the next chunk
+     */
+    private boolean fillChunk(MancalaRecordReader reader) throws IOException {
+        games = 0;
+        positions = 0;
+        boolean more = true;
+        while (more) {
+            int count = reader.getMoveCount();
+            if (count > chunkPositions) {
+                longGames++;
+                more = reader.next();
+                continue;
+            }
+            if (positions + count > chunkPositions) {
+                return true; // starts the next chunk
+            }
+            for (int i = 0; i < count; i++) {
+                moves[positions + i] = (byte) reader.getMove(i);
+            }
+            gameMoves[games] = count;
+            gameStones[games] = reader.getStones();
+            gamePosition[games] = positions;
+            gameHeldOut[games] = validateEvery > 0 && gameNumber++ % validateEvery == 0;
+            positions += count;
+            games++;
+            more = reader.next();
+        }
+        return false;
+    }
+
+    private void processChunk() throws InterruptedException {
+        gamePosition[games] = positions;
+        run(extractTasks);
+        trainingCount = heldOutCount = 0;
+        for (int g = 0; g < games; g++) {
+            if (!gameFinished[g]) {
+                unfinishedGames++;
+                unfinishedPositions += gameMoves[g];
+                continue;
+            }
+            for (int p = gamePosition[g]; p < gamePosition[g + 1]; p++) {
+                if (gameHeldOut[g]) {
+                    heldOut[heldOutCount++] = p;
+                } else {
+                    training[trainingCount++] = p;
+                }
+            }
+        }
+        // shuffle, so a batch mixes positions from many games and stages
+        for (int i = trainingCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = training[i];
+            training[i] = training[j];
+            training[j] = swap;
+        }
+        for (batchFrom = 0; batchFrom < trainingCount; batchFrom += batchSize) {
+            batchTo = Math.min(trainingCount, batchFrom + batchSize);
+            clearPartials();
+            run(gradientTasks);
+            applyGradient();
+        }
+        if (heldOutCount > 0) {
+            clearPartials();
+            run(validateTasks);
+            for (double[] p : partial) {
+                validationLoss += p[F];
+                validationExamples += (long) p[F + 1];
+                validationCorrect += (long) p[F + 2];
+                validationDecided += (long) p[F + 3];
+            }
+        }
+    }
+
+    /**
+     * Replays game g and writes the features of every position before a move,
+     * then labels them with the result for the side that was to move. A game that
+     * does not reach the end has no result; it is marked unfinished and its
+     * positions are left unlabelled.
+     */
+    private void extractGame(MancalaModel model, int g) {
+        model.newGame(gameStones[g]);
+        int base = gamePosition[g];
+        int count = gameMoves[g];
+        for (int i = 0; i < count; i++) {
+            boolean player1 = model.isPlayer1Turn();
+            MancalaWeights.extract(model.getBoard(), player1, features, (base + i) * F);
+            labels[base + i] = player1 ? 1 : -1; // side to move, until the result is known
+            int pit = moves[base + i];
+            if (!model.isLegalPick(pit)) {
+                throw new IllegalStateException("archive game has an illegal move " + pit + " at ply " + i);
+            }
+            model.makeMove(pit);
+        }
+        gameFinished[g] = model.isGameOver();
+        if (!gameFinished[g]) {
+            return;
+        }
+        int a = model.getFinalScore(true);
+        int b = model.getFinalScore(false);
+        float player1Result = a > b ? 1 : a < b ? 0 : 0.5f;
+        for (int i = base; i < base + count; i++) {
+            labels[i] = labels[i] > 0 ? player1Result : 1 - player1Result;
+        }
+    }
+
+    /**
+     * Adds the log loss of positions index[from..to-1] into sums, and with
+     * gradient set, the gradient of the loss; without it, prediction accuracy.
+     */
+    private void accumulate(double[] sums, int[] index, int from, int to, boolean gradient) {
+        for (int k = from; k < to; k++) {
+            int p = index[k];
+            int offset = p * F;
+            double z = 0;
+            for (int f = 0; f < F; f++) {
+                z += weights[f] * features[offset + f];
+            }
+            double y = labels[p];
+            // log(1 + e^z) computed without overflow
+            double softplus = z > 0 ? z + Math.log1p(Math.exp(-z)) : Math.log1p(Math.exp(z));
+            sums[F] += softplus - y * z;
+            sums[F + 1]++;
+            if (gradient) {
+                double error = 1 / (1 + Math.exp(-z)) - y;
+                for (int f = 0; f < F; f++) {
+                    sums[f] += error * features[offset + f];
+                }
+            } else if (y != 0.5) {
+                sums[F + 3]++;
+                if ((z > 0) == (y > 0.5)) {
+                    sums[F + 2]++;
+                }
+            }
+        }
+    }
+
+    private void clearPartials() {
+        for (double[] p : partial) {
+            Arrays.fill(p, 0);
+        }
+    }
+
+    /**
+     * Sums the workers' gradients and takes one Adam step.
+     */
+    private void applyGradient() {
+        double n = 0;
+        for (double[] p : partial) {
+            trainLoss += p[F];
+            n += p[F + 1];
+        }
+        trainExamples += (long) n;
+        step++;
+        double correction1 = 1 - Math.pow(BETA1, step);
+        double correction2 = 1 - Math.pow(BETA2, step);
+        for (int f = 0; f < F; f++) {
+            double g = 0;
+            for (double[] p : partial) {
+                g += p[f];
+            }
+            g /= n;
+            moment[f] = BETA1 * moment[f] + (1 - BETA1) * g;
+            velocity[f] = BETA2 * velocity[f] + (1 - BETA2) * g * g;
+            weights[f] -= rate * (moment[f] / correction1) / (Math.sqrt(velocity[f] / correction2) + EPSILON);
+        }
+    }
+
+    private void run(List<Callable<Void>> tasks) throws InterruptedException {
+        for (Future<Void> f : pool.invokeAll(tasks)) {
+            try {
+                f.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * return the current weights, with the last epoch's validation loss
+     */
+    public MancalaWeights getWeights() {
+        long examples = trainExamples + validationExamples;
+        double loss = validationExamples > 0 ? validationLoss / validationExamples
+                : trainLoss / Math.max(1, trainExamples);
+        return new MancalaWeights(weights, examples, loss);
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int epochs = 3;
+        int batch = 8192;
+        double rate = 0.05;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int chunk = 1 << 18;
+        int validate = 20;
+        long seed = 25;
+        String out = "mancala-weights.txt";
+        List<Path> archives = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-epochs": epochs = Integer.parseInt(args[++i]); break;
+                case "-batch": batch = Integer.parseInt(args[++i]); break;
+                case "-rate": rate = Double.parseDouble(args[++i]); break;
+                case "-threads": threads = Integer.parseInt(args[++i]); break;
+                case "-chunk": chunk = Integer.parseInt(args[++i]); break;
+                case "-validate": validate = Integer.parseInt(args[++i]); break;
+                case "-seed": seed = Long.parseLong(args[++i]); break;
+                case "-out": out = args[++i]; break;
+                default: archives.add(Paths.get(args[i]));
+            }
+        }
+        if (archives.isEmpty()) {
+            System.err.println("Usage: java MancalaWeightTuner [-epochs n] [-batch n] [-rate x] [-threads n]"
+                    + " [-chunk n] [-validate n] [-seed n] [-out file] archive...");
+            System.exit(1);
+        }
+        try (MancalaWeightTuner tuner = new MancalaWeightTuner(threads, batch, rate, chunk, validate, seed)) {
+            for (int e = 1; e <= epochs; e++) {
+                System.out.print("epoch " + e + ": ");
+                tuner.epoch(archives);
+            }
+            MancalaWeights weights = tuner.getWeights();
+            weights.save(Paths.get(out));
+            System.out.println("wrote " + out);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/**
+ * The MancalaWeights class is a learned evaluation for the standard board: a
+ * logistic model that turns a handful of board features into the probability
+ * that the side to move wins. The weights are fitted offline by
+ * MancalaWeightTuner and used in play by WeightedPlayer (player spec
+ * "weighted[:file]").
+ *
+ * Features, all from the side to move's point of view, counted on the board as
+ * it stands (captures are not followed through the sowing):
+ *   bias              always 1
+ *   storeDiff         own store minus opponent's store, per stone on the board
+ *   sideDiff          stones in own pits minus opponent's pits, per stone
+ *   mobilityDiff      own legal moves minus opponent's, per pit
+ *   freeTurns         own moves ending in own store, per pit
+ *   oppFreeTurns      opponent's moves ending in its store, per pit
+ *   captureThreat     most stones one own move captures, per stone
+ *   oppCaptureThreat  most stones one opponent move captures, per stone
+ * Dividing by the stones on the board keeps 3- and 4-stone games on one scale.
+ *
+ * Weights file: UTF-8 text, '#' comments, then "format mancala-weights",
+ * "version n", optional "positions n" and "loss x" lines describing the fit,
+ * and one "feature weight" line per feature. Features missing from a file
+ * weigh 0, so files stay readable when features are added.
+ * @author Kaydon Do, Rongjie Mai, Sarah Hoang
+ * @version 1.0
+ */
+// MancalaWeights.java
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+
+public final class MancalaWeights {
+    public static final String[] FEATURES = {"bias", "storeDiff", "sideDiff", "mobilityDiff",
+            "freeTurns", "oppFreeTurns", "captureThreat", "oppCaptureThreat"};
+    public static final int COUNT = FEATURES.length;
+    public static final int VERSION = 1;
+    private static final String FORMAT = "mancala-weights";
+
+    private final double[] weights;
+    private final long positions;
+    private final double loss;
+
+    /**
+     * Constructs a weight set.
+     * weights one weight per FEATURES entry
+     * positions the number of positions the weights were fitted on
+     * loss the log loss of the fit, NaN if unknown
+     */
+    public MancalaWeights(double[] weights, long positions, double loss) {
+        if (weights.length != COUNT) {
+            throw new IllegalArgumentException("expected " + COUNT + " weights, got " + weights.length);
+        }
+        this.weights = weights.clone();
+        this.positions = positions;
+        this.loss = loss;
+    }
+
+    /**
+     * return hand-set weights that favour the store difference, for use before
+     * anything has been fitted
+     */
+    public static MancalaWeights defaults() {
+        return new MancalaWeights(new double[] {0, 8, 1, 0, 0, 0, 0, 0}, 0, Double.NaN);
+    }
+
+    /**
+     * Computes the features of a standard board.
+     * board the 14 slot counts in MancalaModel.getBoard order
+     * player1 true if Player 1 is to move
+     * out receives COUNT features starting at offset
+     * offset where the features go
+     */
+    public static void extract(int[] board, boolean player1, float[] out, int offset) {
+        int total = 0;
+        for (int stones : board) {
+            total += stones;
+        }
+        float perStone = 1f / Math.max(1, total);
+        int own = player1 ? 0 : 7;
+        int opp = player1 ? 7 : 0;
+        int ownStore = player1 ? MancalaModel.A_STORE : MancalaModel.B_STORE;
+        int oppStore = player1 ? MancalaModel.B_STORE : MancalaModel.A_STORE;
+        int ownSide = 0, oppSide = 0;
+        for (int i = 0; i < 6; i++) {
+            ownSide += board[own + i];
+            oppSide += board[opp + i];
+        }
+        // per side: legal moves, free-turn moves, best capture
+        int ownMoves = 0, ownFree = 0, ownCapture = 0;
+        int oppMoves = 0, oppFree = 0, oppCapture = 0;
+        for (int i = 0; i < 6; i++) {
+            int pit = own + i;
+            int stones = board[pit];
+            if (stones > 0) {
+                ownMoves++;
+                int land = MancalaModel.landingSlot(pit, stones, player1);
+                ownFree += land == ownStore ? 1 : 0;
+                ownCapture = Math.max(ownCapture, captured(board, pit, stones, land, own));
+            }
+            pit = opp + i;
+            stones = board[pit];
+            if (stones > 0) {
+                oppMoves++;
+                int land = MancalaModel.landingSlot(pit, stones, !player1);
+                oppFree += land == oppStore ? 1 : 0;
+                oppCapture = Math.max(oppCapture, captured(board, pit, stones, land, opp));
+            }
+        }
+        out[offset] = 1;
+        out[offset + 1] = (board[ownStore] - board[oppStore]) * perStone;
+        out[offset + 2] = (ownSide - oppSide) * perStone;
+        out[offset + 3] = (ownMoves - oppMoves) / 6f;
+        out[offset + 4] = ownFree / 6f;
+        out[offset + 5] = oppFree / 6f;
+        out[offset + 6] = ownCapture * perStone;
+        out[offset + 7] = oppCapture * perStone;
+    }
+
+    /**
+     * Returns what a move would capture (the stones across plus the sowing stone),
+     * judged on the board before the move: it lands in an empty pit of its own
+     * row, or goes a full lap back to its own emptied pit.
+     */
+    private static int captured(int[] board, int pit, int stones, int land, int first) {
+        if (land < first || land >= first + 6) {
+            return 0;
+        }
+        boolean empty = stones == 13 || (stones < 13 && board[land] == 0);
+        int across = board[12 - land] + (stones >= 13 ? 1 : 0);
+        return empty && across > 0 ? across + 1 : 0;
+    }
+
+    /**
+     * Returns the model's score for a set of features: the log-odds that the side
+     * to move wins. The win probability is 1 / (1 + exp(-score)).
+     * features COUNT features starting at offset
+     */
+    public double score(float[] features, int offset) {
+        double z = 0;
+        for (int i = 0; i < COUNT; i++) {
+            z += weights[i] * features[offset + i];
+        }
+        return z;
+    }
+
+    /**
+     * return a copy of the weights, in FEATURES order
+     */
+    public double[] getWeights() {
+        return weights.clone();
+    }
+
+    public long getPositions() {
+        return positions;
+    }
+
+    public double getLoss() {
+        return loss;
+    }
+
+    /**
+     * Writes the weights file, replacing any existing file.
+     * file the file to write
+     */
+    public void save(Path file) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.println("# Mancala evaluation weights, fitted by MancalaWeightTuner");
+            out.println("format " + FORMAT);
+            out.println("version " + VERSION);
+            out.println("positions " + positions);
+            if (!Double.isNaN(loss)) {
+                out.println(String.format(Locale.ROOT, "loss %.6f", loss));
+            }
+            for (int i = 0; i < COUNT; i++) {
+                out.println(String.format(Locale.ROOT, "%s %.8f", FEATURES[i], weights[i]));
+            }
+        }
+    }
+
+    /**
+     * Reads a weights file.
+     * file the file to read
+     * return the weights
+     */
+    public static MancalaWeights load(Path file) throws IOException {
+        double[] weights = new double[COUNT];
+        long positions = 0;
+        double loss = Double.NaN;
+        boolean format = false;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split("\\s+");
+                if (parts.length != 2) {
+                    throw new IOException("bad line in weights file " + file + ": " + line);
+                }
+                try {
+                    switch (parts[0]) {
+                        case "format":
+                            if (!parts[1].equals(FORMAT)) {
+                                throw new IOException("not a weights file: " + file);
+                            }
+                            format = true;
+                            break;
+                        case "version":
+                            int version = Integer.parseInt(parts[1]);
+                            if (version > VERSION) {
+                                throw new IOException("unsupported weights file version " + version);
+                            }
+                            break;
+                        case "positions": positions = Long.parseLong(parts[1]); break;
+                        case "loss": loss = Double.parseDouble(parts[1]); break;
+                        default:
+                            int feature = Arrays.asList(FEATURES).indexOf(parts[0]);
+                            if (feature < 0) {
+                                throw new IOException("unknown feature in weights file " + file + ": " + parts[0]);
+                            }
+                            weights[feature] = Double.parseDouble(parts[1]);
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IOException("bad number in weights file " + file + ": " + line);
+                }
+            }
+        }
+        if (!format) {
+            throw new IOException("not a weights file: " + file);
+        }
+        return new MancalaWeights(weights, positions, loss);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < COUNT; i++) {
+            text.append(String.format(Locale.ROOT, "%s%s %+.4f", i == 0 ? "" : ", ", FEATURES[i], weights[i]));
+        }
+        return text.toString();
+    }
+}